@@ -27,7 +27,7 @@ import java.lang.annotation.Target;
  * @see KeyFormatter
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.TYPE, ElementType.FIELD, ElementType.RECORD_COMPONENT})
+@Target({ElementType.TYPE, ElementType.FIELD, ElementType.RECORD_COMPONENT, ElementType.METHOD})
 public @interface FormatKeyWith {
 
     Class<? extends KeyFormatter> value();
@@ -23,6 +23,6 @@ import java.lang.annotation.Target;
  * The absence of a value for 'optionalField' in the configuration will not raise an error during deserialization.</p>
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT, ElementType.METHOD})
 public @interface Optional {
 }
@@ -0,0 +1,19 @@
+package org.machinemc.cogwheel.config;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Result of loading multiple configuration files at once.
+ *
+ * @param loaded successfully loaded configurations by their files, in the order the files were given
+ * @param failed exceptions of the files that could not be loaded
+ * @param <C> configuration type
+ */
+public record BulkLoadResult<C extends Configuration>(Map<Path, C> loaded, Map<Path, Throwable> failed) {
+
+    public boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+}
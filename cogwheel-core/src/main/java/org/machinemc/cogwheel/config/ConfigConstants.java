@@ -0,0 +1,206 @@
+package org.machinemc.cogwheel.config;
+
+import org.machinemc.cogwheel.util.JavaUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in accessors of a {@link LiveConfig} whose values can be folded into constants by the JIT compiler.
+ * <p>
+ * Each accessor is a {@link MethodHandle} backed by a {@link MutableCallSite} bound to the current value
+ * of a configuration field. Stored in a {@code static final} field and called with
+ * {@link MethodHandle#invokeExact(Object...) invokeExact}, the value is inlined as a constant
+ * into compiled code:
+ * <pre>{@code
+ * static final MethodHandle VIEW_DISTANCE = constants.getter("viewDistance");
+ * ...
+ * int viewDistance = (int) VIEW_DISTANCE.invokeExact();
+ * }</pre>
+ * Publishing a new configuration to the holder invalidates the {@link SwitchPoint} guarding the
+ * current values and rebinds the call sites, code depending on them is deoptimized only then.
+ * Unlike {@link LiveConfig#get()}, reads are therefore free while the configuration does not change,
+ * but each change is expensive, accessors should be used only for configurations that rarely change.
+ *
+ * @param <C> configuration type
+ */
+public final class ConfigConstants<C extends Configuration> {
+
+    private static final MethodHandle CURRENT_VALUE;
+
+    static {
+        try {
+            CURRENT_VALUE = MethodHandles.lookup().findVirtual(Accessor.class, "currentValue", MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final LiveConfig<C> liveConfig;
+    private final Map<String, Accessor> accessors = new ConcurrentHashMap<>();
+    private final LiveConfig.Listener<C> listener = (previous, current) -> refresh();
+    private SwitchPoint switchPoint = new SwitchPoint();
+    private long version;
+    private boolean closed;
+
+    private ConfigConstants(LiveConfig<C> liveConfig) {
+        this.liveConfig = liveConfig;
+        this.version = liveConfig.version();
+    }
+
+    /**
+     * Creates accessors of the configuration published by given holder,
+     * they are kept up to date until {@link #close()} is called.
+     *
+     * @param liveConfig holder of the configuration
+     * @return accessors of the configuration
+     * @param <C> configuration type
+     */
+    public static <C extends Configuration> ConfigConstants<C> of(LiveConfig<C> liveConfig) {
+        ConfigConstants<C> constants = new ConfigConstants<>(Objects.requireNonNull(liveConfig, "liveConfig"));
+        liveConfig.addListener(constants.listener);
+        return constants;
+    }
+
+    /**
+     * Returns the accessor of a configuration field. The accessor takes no arguments and returns
+     * the exact type of the field, for example {@code ()int} for an {@code int} field.
+     * Repeated calls with the same path return the same accessor.
+     *
+     * @param path names of the fields or record components leading to the value, separated by dots,
+     *             e.g. {@code database.pool.size}
+     * @return accessor of the current value
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public MethodHandle getter(String path) {
+        Objects.requireNonNull(path, "path");
+        Accessor accessor = accessors.get(path);
+        if (accessor != null) return accessor.invoker;
+        synchronized (this) {
+            return accessors.computeIfAbsent(path, this::createAccessor).invoker;
+        }
+    }
+
+    /**
+     * Stops updating the accessors, they keep returning the last values they were bound to.
+     */
+    public synchronized void close() {
+        closed = true;
+        liveConfig.removeListener(listener);
+    }
+
+    private Accessor createAccessor(String path) {
+        String[] names = path.split("\\.", -1);
+        AnnotatedElement[] members = new AnnotatedElement[names.length];
+        Class<?> holder = liveConfig.get().getClass();
+        Class<?> type = null;
+        for (int i = 0; i < names.length; i++) {
+            if (type != null && !Configuration.class.isAssignableFrom(type))
+                throw new IllegalArgumentException("'" + names[i - 1] + "' in '" + path + "' is not a configuration");
+            if (type != null) holder = type;
+            members[i] = findMember(holder, names[i]);
+            if (members[i] == null)
+                throw new IllegalArgumentException("No field '" + names[i] + "' in " + holder.getName());
+            type = members[i] instanceof Field field ? field.getType() : ((RecordComponent) members[i]).getType();
+        }
+        Accessor accessor = new Accessor(liveConfig, members, type);
+        accessor.bind(liveConfig.get(), switchPoint);
+        return accessor;
+    }
+
+    private static AnnotatedElement findMember(Class<?> holder, String name) {
+        if (holder.isRecord()) {
+            for (RecordComponent component : holder.getRecordComponents())
+                if (component.getName().equals(name)) return component;
+            return null;
+        }
+        for (Class<?> cls = holder; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            Field field = JavaUtils.getField(cls, name);
+            if (field != null) return field;
+        }
+        return null;
+    }
+
+    private synchronized void refresh() {
+        if (closed) return;
+        // listeners of concurrent updates may run out of order, always bind the latest snapshot
+        LiveConfig.Snapshot<C> snapshot = liveConfig.snapshot();
+        if (snapshot.version() <= version) return;
+        version = snapshot.version();
+        SwitchPoint previous = switchPoint;
+        switchPoint = new SwitchPoint();
+        List<MutableCallSite> sites = new ArrayList<>(accessors.size());
+        try {
+            for (Accessor accessor : accessors.values()) {
+                accessor.bind(snapshot.configuration(), switchPoint);
+                sites.add(accessor.callSite);
+            }
+        } finally {
+            // accessors that were not rebound fall back to reading the holder once the old values are invalidated
+            MutableCallSite.syncAll(sites.toArray(MutableCallSite[]::new));
+            SwitchPoint.invalidateAll(new SwitchPoint[]{previous});
+        }
+    }
+
+    private static final class Accessor {
+
+        private final LiveConfig<?> liveConfig;
+        private final AnnotatedElement[] members;
+        private final MutableCallSite callSite;
+        private final MethodHandle invoker;
+        private final MethodHandle fallback;
+
+        private Accessor(LiveConfig<?> liveConfig, AnnotatedElement[] members, Class<?> type) {
+            this.liveConfig = liveConfig;
+            this.members = members;
+            MethodType methodType = MethodType.methodType(type);
+            this.callSite = new MutableCallSite(methodType);
+            this.invoker = callSite.dynamicInvoker();
+            this.fallback = CURRENT_VALUE.bindTo(this).asType(methodType);
+        }
+
+        /**
+         * Binds the call site to the value in given configuration, guarded by the switch point
+         * so that callers fall back to reading the holder once it is invalidated.
+         * If the value can not be read, e.g. because a section on its path is {@code null},
+         * the call site reads the holder on each call instead.
+         */
+        private void bind(Configuration configuration, SwitchPoint switchPoint) {
+            MethodHandle target;
+            try {
+                MethodHandle constant = MethodHandles.constant(callSite.type().returnType(), valueOf(configuration));
+                target = switchPoint.guardWithTest(constant, fallback);
+            } catch (RuntimeException e) {
+                target = fallback;
+            }
+            callSite.setTarget(target);
+        }
+
+        private Object currentValue() {
+            return valueOf(liveConfig.get());
+        }
+
+        private Object valueOf(Object holder) {
+            for (AnnotatedElement member : members) {
+                if (holder == null) throw new NullPointerException("Section holding the value is null");
+                holder = member instanceof Field field
+                        ? JavaUtils.getValue(field, holder)
+                        : JavaUtils.getValue((RecordComponent) member, holder);
+            }
+            return holder;
+        }
+
+    }
+
+}
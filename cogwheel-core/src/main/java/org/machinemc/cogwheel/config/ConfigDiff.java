@@ -0,0 +1,388 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.machinemc.cogwheel.util.JavaUtils;
+import org.machinemc.cogwheel.util.classbuilder.RecordBuilder;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Structural difference between two instances of the same configuration class.
+ * <p>
+ * The instances are compared node by node, recursing into sections, lists, arrays and maps,
+ * so each change describes the smallest value that differs. Values that are the same reference
+ * are not compared at all, comparing configurations that share their unchanged sections
+ * therefore takes time proportional to the changed sections only.
+ *
+ * @see ConfigSerializer#diff(Configuration, Configuration)
+ */
+public final class ConfigDiff {
+
+    private final Function<Class<?>, List<ConfigNode<?>>> nodes;
+    private final List<Change> changes;
+
+    private ConfigDiff(Function<Class<?>, List<ConfigNode<?>>> nodes, List<Change> changes) {
+        this.nodes = nodes;
+        this.changes = changes;
+    }
+
+    static ConfigDiff between(Function<Class<?>, List<ConfigNode<?>>> nodes, Configuration previous, Configuration current) {
+        if (previous.getClass() != current.getClass())
+            throw new IllegalArgumentException("Cannot compare " + previous.getClass() + " with " + current.getClass());
+        List<Change> changes = new ArrayList<>();
+        new Differ(nodes, changes).compareSections(null, previous, current);
+        return new ConfigDiff(nodes, changes.isEmpty() ? List.of() : Collections.unmodifiableList(changes));
+    }
+
+    /**
+     * Compares two values node by node, the same way as the values of configurations are compared.
+     *
+     * @param nodes nodes of the configuration classes
+     * @param previous previous value
+     * @param current current value
+     * @return whether there are no differences between the values
+     */
+    @ApiStatus.Internal
+    public static boolean isEqual(Function<Class<?>, List<ConfigNode<?>>> nodes, @Nullable Object previous, @Nullable Object current) {
+        if (previous == current) return true;
+        List<Change> changes = new ArrayList<>();
+        new Differ(nodes, changes).compare(PathElement.child(null, new Segment.Node("")), previous, current);
+        return changes.isEmpty();
+    }
+
+    /**
+     * @return the changes, in the order of the nodes
+     */
+    public List<Change> changes() {
+        return changes;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Checks whether a value or anything inside of it changed.
+     *
+     * @param path path in the format of {@link Change#path()}, e.g. {@code database} or {@code database.pool.size}
+     * @return whether any change is at the path or inside of it
+     */
+    public boolean affects(String path) {
+        for (Change change : changes) {
+            String changed = change.path();
+            if (!changed.startsWith(path)) continue;
+            if (changed.length() == path.length()) return true;
+            char next = changed.charAt(path.length());
+            if (next == '.' || next == '[') return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies the changes to a configuration, turning it into the current configuration of this diff.
+     * Sections, as well as lists and maps of the modifiable {@code java.util} types, are updated in place.
+     * Records and other lists and maps, such as unmodifiable ones, are replaced with modified copies. Changed fields of {@link TrackedConfiguration tracked configurations}
+     * are marked as dirty.
+     *
+     * @param configuration configuration to update, equal to the previous configuration of this diff
+     * @return the updated configuration, a new instance only if the configuration is a record
+     * @param <C> configuration type
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends Configuration> C applyTo(C configuration) {
+        Object updated = configuration;
+        for (Change change : changes)
+            updated = apply(updated, change, 0);
+        return (C) updated;
+    }
+
+    private Object apply(Object container, Change change, int depth) {
+        if (container instanceof LazySection<?> lazySection) {
+            // changes inside of lazy sections are only found if the sections were loaded and are updated in place
+            apply(Objects.requireNonNull(lazySection.get()), change, depth);
+            return container;
+        }
+        Segment segment = change.segments().get(depth);
+        boolean last = depth == change.segments().size() - 1;
+        return switch (segment) {
+            case Segment.Node(String name) -> {
+                if (container instanceof Record record) {
+                    RecordComponent component = findComponent(record.getClass(), name);
+                    Object child = JavaUtils.getValue(component, record);
+                    Object updated = last ? change.newValue() : apply(child, change, depth + 1);
+                    yield updated != child || last ? withComponent(record, name, updated) : record;
+                }
+                FieldNode node = findNode(container.getClass(), name);
+                Object child = node.getValue(container);
+                Object updated = last ? change.newValue() : apply(child, change, depth + 1);
+                if (updated != child || last) {
+                    node.setValue(container, updated);
+                    if (container instanceof TrackedConfiguration tracked) tracked.markDirty(name);
+                }
+                yield container;
+            }
+            case Segment.Index(int index) -> {
+                if (container.getClass().isArray()) {
+                    Object updated = last ? change.newValue() : apply(Array.get(container, index), change, depth + 1);
+                    Array.set(container, index, updated);
+                    yield container;
+                }
+                @SuppressWarnings("unchecked")
+                List<Object> list = (List<Object>) container;
+                // decided before applying, a nested change must not be applied again to a copy
+                if (!isModifiable(list)) list = new ArrayList<>(list);
+                applyToList(list, index, change, depth, last);
+                yield list;
+            }
+            case Segment.Key(Object key) -> {
+                @SuppressWarnings("unchecked")
+                Map<Object, Object> map = (Map<Object, Object>) container;
+                if (!isModifiable(map)) map = new LinkedHashMap<>(map);
+                applyToMap(map, key, change, depth, last);
+                yield map;
+            }
+        };
+    }
+
+    /**
+     * Lists of these types are updated in place, others may be unmodifiable or of fixed size
+     * and are replaced with copies.
+     */
+    private static boolean isModifiable(List<?> list) {
+        return list instanceof ArrayList || list instanceof LinkedList || list instanceof Vector
+                || list instanceof CopyOnWriteArrayList;
+    }
+
+    /**
+     * Maps of these types are updated in place, others may be unmodifiable and are replaced with copies.
+     */
+    private static boolean isModifiable(Map<?, ?> map) {
+        return map instanceof HashMap || map instanceof TreeMap || map instanceof IdentityHashMap
+                || map instanceof WeakHashMap || map instanceof EnumMap || map instanceof Hashtable
+                || map instanceof ConcurrentMap;
+    }
+
+    private void applyToList(List<Object> list, int index, Change change, int depth, boolean last) {
+        if (!last) {
+            Object child = list.get(index);
+            Object updated = apply(child, change, depth + 1);
+            if (updated != child) list.set(index, updated);
+            return;
+        }
+        switch (change.kind()) {
+            case ADDED -> list.add(index, change.newValue());
+            case REMOVED -> list.remove(index);
+            case CHANGED -> list.set(index, change.newValue());
+        }
+    }
+
+    private void applyToMap(Map<Object, Object> map, Object key, Change change, int depth, boolean last) {
+        if (!last) {
+            Object child = map.get(key);
+            Object updated = apply(child, change, depth + 1);
+            if (updated != child) map.put(key, updated);
+            return;
+        }
+        if (change.kind() == Kind.REMOVED) map.remove(key);
+        else map.put(key, change.newValue());
+    }
+
+    private FieldNode findNode(Class<?> type, String name) {
+        for (ConfigNode<?> node : nodes.apply(type)) {
+            if (node instanceof FieldNode fieldNode && node.getName().equals(name)) return fieldNode;
+        }
+        throw new IllegalArgumentException("No node '" + name + "' in " + type.getName());
+    }
+
+    private static RecordComponent findComponent(Class<?> type, String name) {
+        for (RecordComponent component : type.getRecordComponents()) {
+            if (component.getName().equals(name)) return component;
+        }
+        throw new IllegalArgumentException("No node '" + name + "' in " + type.getName());
+    }
+
+    /**
+     * @return copy of the record with one component replaced
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Record withComponent(Record record, String name, @Nullable Object value) {
+        RecordBuilder<Record> builder = new RecordBuilder<>((Class<Record>) record.getClass());
+        for (RecordComponent component : record.getClass().getRecordComponents()) {
+            Object componentValue = component.getName().equals(name) ? value : JavaUtils.getValue(component, record);
+            builder.setComponent(component.getName(), (Class) component.getType(), componentValue);
+        }
+        Record copy = builder.build();
+        if (copy == null) throw new IllegalArgumentException("Could not create a copy of " + record);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigDiff" + changes;
+    }
+
+    /**
+     * A changed value.
+     *
+     * @param segments path to the value
+     * @param kind whether the value was changed, added to or removed from a list or map
+     * @param oldValue previous value, {@code null} if it was added
+     * @param newValue current value, {@code null} if it was removed
+     */
+    public record Change(List<Segment> segments, Kind kind, @Nullable Object oldValue, @Nullable Object newValue) {
+
+        /**
+         * @return path to the value, node names are separated by dots and list indices
+         * and map keys are in brackets, e.g. {@code servers[0].ports[http]}
+         */
+        public String path() {
+            StringBuilder builder = new StringBuilder();
+            for (Segment segment : segments) {
+                switch (segment) {
+                    case Segment.Node(String name) -> {
+                        if (!builder.isEmpty()) builder.append('.');
+                        builder.append(name);
+                    }
+                    case Segment.Index(int index) -> builder.append('[').append(index).append(']');
+                    case Segment.Key(Object key) -> builder.append('[').append(key).append(']');
+                }
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String toString() {
+            return switch (kind) {
+                case CHANGED -> path() + ": " + JavaUtils.toString(oldValue, "null") + " -> " + JavaUtils.toString(newValue, "null");
+                case ADDED -> path() + ": + " + JavaUtils.toString(newValue, "null");
+                case REMOVED -> path() + ": - " + JavaUtils.toString(oldValue, "null");
+            };
+        }
+
+    }
+
+    public enum Kind {
+        CHANGED, ADDED, REMOVED
+    }
+
+    /**
+     * Part of the path to a changed value.
+     */
+    public sealed interface Segment {
+
+        /**
+         * Node of a section, identified by the name of its field or record component.
+         */
+        record Node(String name) implements Segment {
+        }
+
+        record Index(int index) implements Segment {
+        }
+
+        record Key(Object key) implements Segment {
+        }
+
+    }
+
+    /**
+     * Path being compared, materialized only when a change is found.
+     */
+    private record PathElement(@Nullable PathElement parent, Segment segment, int depth) {
+
+        static PathElement child(@Nullable PathElement parent, Segment segment) {
+            return new PathElement(parent, segment, parent != null ? parent.depth + 1 : 1);
+        }
+
+        List<Segment> toList() {
+            Segment[] segments = new Segment[depth];
+            for (PathElement element = this; element != null; element = element.parent)
+                segments[element.depth - 1] = element.segment;
+            return List.of(segments);
+        }
+
+    }
+
+    private record Differ(Function<Class<?>, List<ConfigNode<?>>> nodes, List<Change> changes) {
+
+        void compareSections(@Nullable PathElement path, Object previous, Object current) {
+            for (ConfigNode<?> node : nodes.apply(previous.getClass())) {
+                compare(
+                        PathElement.child(path, new Segment.Node(node.getName())),
+                        node.getValue(previous),
+                        node.getValue(current)
+                );
+            }
+        }
+
+        void compare(PathElement path, @Nullable Object previous, @Nullable Object current) {
+            if (previous == current) return;
+            if (previous == null || current == null) {
+                changed(path, previous, current);
+                return;
+            }
+            if (previous instanceof Configuration && previous.getClass() == current.getClass()) {
+                compareSections(path, previous, current);
+                return;
+            }
+            if (previous instanceof LazySection<?> previousLazy && current instanceof LazySection<?> currentLazy
+                    && previousLazy.getIfLoaded() instanceof Configuration previousSection
+                    && currentLazy.getIfLoaded() instanceof Configuration currentSection
+                    && previousSection.getClass() == currentSection.getClass() && !previousSection.getClass().isRecord()) {
+                compareSections(path, previousSection, currentSection);
+                return;
+            }
+            if (previous instanceof List<?> previousList && current instanceof List<?> currentList) {
+                compareLists(path, previousList, currentList);
+                return;
+            }
+            if (previous instanceof Map<?, ?> previousMap && current instanceof Map<?, ?> currentMap) {
+                compareMaps(path, previousMap, currentMap);
+                return;
+            }
+            if (previous instanceof Object[] previousArray && current instanceof Object[] currentArray
+                    && previousArray.length == currentArray.length
+                    && previous.getClass() == current.getClass()) {
+                for (int i = 0; i < previousArray.length; i++)
+                    compare(PathElement.child(path, new Segment.Index(i)), previousArray[i], currentArray[i]);
+                return;
+            }
+            if (!Objects.deepEquals(previous, current)) changed(path, previous, current);
+        }
+
+        void compareLists(PathElement path, List<?> previous, List<?> current) {
+            int common = Math.min(previous.size(), current.size());
+            for (int i = 0; i < common; i++)
+                compare(PathElement.child(path, new Segment.Index(i)), previous.get(i), current.get(i));
+            // removed from the end first, so the changes can be applied in order
+            for (int i = previous.size() - 1; i >= common; i--)
+                changes.add(new Change(PathElement.child(path, new Segment.Index(i)).toList(), Kind.REMOVED, previous.get(i), null));
+            for (int i = common; i < current.size(); i++)
+                changes.add(new Change(PathElement.child(path, new Segment.Index(i)).toList(), Kind.ADDED, null, current.get(i)));
+        }
+
+        void compareMaps(PathElement path, Map<?, ?> previous, Map<?, ?> current) {
+            for (Map.Entry<?, ?> entry : previous.entrySet()) {
+                PathElement child = PathElement.child(path, new Segment.Key(entry.getKey()));
+                if (current.containsKey(entry.getKey())) compare(child, entry.getValue(), current.get(entry.getKey()));
+                else changes.add(new Change(child.toList(), Kind.REMOVED, entry.getValue(), null));
+            }
+            for (Map.Entry<?, ?> entry : current.entrySet()) {
+                if (previous.containsKey(entry.getKey())) continue;
+                PathElement child = PathElement.child(path, new Segment.Key(entry.getKey()));
+                changes.add(new Change(child.toList(), Kind.ADDED, null, entry.getValue()));
+            }
+        }
+
+        void changed(PathElement path, @Nullable Object previous, @Nullable Object current) {
+            changes.add(new Change(path.toList(), Kind.CHANGED, previous, current));
+        }
+
+    }
+
+}
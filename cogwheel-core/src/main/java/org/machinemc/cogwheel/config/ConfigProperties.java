@@ -5,8 +5,23 @@ import org.machinemc.cogwheel.keyformatter.KeyFormatter;
 import org.machinemc.cogwheel.serialization.SerializerRegistry;
 import org.machinemc.cogwheel.*;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
 public class ConfigProperties implements Cloneable {
 
+    /**
+     * Default executor of the asynchronous operations, runs each task in its own virtual thread.
+     */
+    public static final Executor VIRTUAL_THREAD_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cogwheel-io-", 0).factory()
+    );
+
     SerializerRegistry serializerRegistry = new SerializerRegistry();
     ClassInitiator classInitiator = ClassInitiator.DEFAULT;
     KeyFormatter keyFormatter = new IdentifierKeyFormatter();
@@ -14,6 +29,9 @@ public class ConfigProperties implements Cloneable {
     FieldExtractor fieldExtractor = FieldExtractor.DEFAULT;
     RecordDisassembler recordDisassembler = RecordDisassembler.DEFAULT;
     ErrorHandler errorHandler = ErrorHandler.NORMAL;
+    Executor executor = VIRTUAL_THREAD_EXECUTOR;
+
+    private final NodeCache nodeCache = new NodeCache();
 
     public SerializerRegistry serializerRegistry() {
         return serializerRegistry;
@@ -43,6 +61,31 @@ public class ConfigProperties implements Cloneable {
         return errorHandler;
     }
 
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Returns the nodes of a configuration class. They are created only once and then shared
+     * by all serializations using these properties or their clones.
+     * <p>
+     * Nodes are cached per class and key formatter instance, properties with a different
+     * key formatter instance get nodes of their own. The cache does not keep classes
+     * or key formatters from being unloaded.
+     *
+     * @param type configuration class
+     * @param factory creates the nodes if they are not cached yet
+     * @return nodes of the class
+     */
+    public List<ConfigNode<?>> nodes(Class<?> type, Function<Class<?>, List<ConfigNode<?>>> factory) {
+        Map<KeyFormatter, List<ConfigNode<?>>> cache = nodeCache.get(type);
+        List<ConfigNode<?>> nodes = cache.get(keyFormatter);
+        if (nodes != null) return nodes;
+        nodes = List.copyOf(factory.apply(type));
+        List<ConfigNode<?>> previous = cache.putIfAbsent(keyFormatter, nodes);
+        return previous != null ? previous : nodes;
+    }
+
     @Override
     public ConfigProperties clone() {
         try {
@@ -52,4 +95,17 @@ public class ConfigProperties implements Cloneable {
         }
     }
 
+    /**
+     * Nodes of each class by key formatter, stored with the class itself
+     * and with weak key formatter keys.
+     */
+    private static final class NodeCache extends ClassValue<Map<KeyFormatter, List<ConfigNode<?>>>> {
+
+        @Override
+        protected Map<KeyFormatter, List<ConfigNode<?>>> computeValue(Class<?> type) {
+            return Collections.synchronizedMap(new WeakHashMap<>());
+        }
+
+    }
+
 }
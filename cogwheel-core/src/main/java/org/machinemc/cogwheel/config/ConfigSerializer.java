@@ -1,6 +1,9 @@
 package org.machinemc.cogwheel.config;
 
+import org.jetbrains.annotations.Nullable;
 import org.machinemc.cogwheel.annotations.FormatKeyWith;
+import org.machinemc.cogwheel.annotations.ReadWith;
+import org.machinemc.cogwheel.annotations.SerializeWith;
 import org.machinemc.cogwheel.keyformatter.KeyFormatter;
 import org.machinemc.cogwheel.*;
 import org.machinemc.cogwheel.serialization.Serializer;
@@ -8,24 +11,321 @@ import org.machinemc.cogwheel.serialization.SerializerContext;
 import org.machinemc.cogwheel.serialization.SerializerFactory;
 import org.machinemc.cogwheel.serialization.SerializerRegistry;
 import org.machinemc.cogwheel.serialization.*;
+import org.machinemc.cogwheel.util.FileUtils;
+import org.machinemc.cogwheel.util.LruCache;
 import org.machinemc.cogwheel.util.JavaUtils;
-
-import java.io.File;
+import org.machinemc.cogwheel.util.error.ErrorType;
+
+import java.io.*;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardOpenOption.READ;
 
 public abstract class ConfigSerializer<T> {
 
+    /**
+     * Size of the buffers used for file I/O, large enough to read
+     * or write most configurations in a single system call.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private final ConfigProperties properties;
 
+    /**
+     * Maximum number of files whose content hashes are remembered, files that were evicted
+     * are compared with their content on disk on the next save.
+     */
+    private static final int MAX_WRITTEN_FILES = 1024;
+
+    /**
+     * Content hashes of the files last written by this serializer, together with the size
+     * and modification time the files had right after, to notice when they change.
+     */
+    private final LruCache<Path, WrittenFile> writtenFiles = new LruCache<>(MAX_WRITTEN_FILES);
+
+    private final Map<Class<?>, ConfigView.Binding> views = new ConcurrentHashMap<>();
+
+    /**
+     * Key formatters of {@link FormatKeyWith} annotations, one instance per formatter class,
+     * so that the nodes cached per key formatter are shared by all loads.
+     */
+    private final Map<Class<? extends KeyFormatter>, KeyFormatter> annotatedKeyFormatters = new ConcurrentHashMap<>();
+
     protected ConfigSerializer(ConfigProperties properties) {
         this.properties = properties;
     }
 
     protected abstract ConfigAdapter<T> newAdapter();
 
-    protected abstract void save(File file, T t);
+    /**
+     * Writes the configuration in the format of this serializer.
+     * The writer is neither flushed nor closed.
+     * <p>
+     * Serializers written before this method existed override {@link #save(File, Object)} instead,
+     * the default implementation saves to a temporary file with it and copies the file to the writer.
+     *
+     * @param writer writer to write to
+     * @param t configuration to write
+     * @throws IOException if writing fails
+     */
+    protected void write(Writer writer, T t) throws IOException {
+        if (!overrides("save", File.class, Object.class))
+            throw new UnsupportedOperationException(getClass().getName() + " does not implement write(Writer, T)");
+        Path file = Files.createTempFile("cogwheel", null);
+        try {
+            save(file.toFile(), t);
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Reads a configuration in the format of this serializer.
+     * The reader is not closed.
+     * <p>
+     * Serializers written before this method existed override {@link #load(File)} instead,
+     * the default implementation copies the reader to a temporary file and loads it with it.
+     *
+     * @param reader reader to read from
+     * @return the configuration
+     * @throws IOException if reading fails
+     */
+    protected T read(Reader reader) throws IOException {
+        if (!overrides("load", File.class))
+            throw new UnsupportedOperationException(getClass().getName() + " does not implement read(Reader)");
+        Path file = Files.createTempFile("cogwheel", null);
+        try {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+            return load(file.toFile());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Checks whether a subclass overrides the method of this class.
+     */
+    private boolean overrides(String name, Class<?>... parameterTypes) {
+        for (Class<?> type = getClass(); type != ConfigSerializer.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads only the keys of the projection, formats whose readers can skip values without
+     * building them override this to leave out everything outside of the projection.
+     * The default implementation reads the whole configuration.
+     *
+     * @param reader reader to read from
+     * @param projection keys to read
+     * @return the configuration, it may contain keys outside of the projection
+     * @throws IOException if reading fails
+     */
+    protected T read(Reader reader, KeyProjection projection) throws IOException {
+        return read(reader);
+    }
+
+    /**
+     * Saves the configuration to the file, see {@link #save(Path, Object)}.
+     * Kept with its original signature for subclasses that call or override it,
+     * formats now implement {@link #write(Writer, Object)} and {@link #read(Reader)} instead.
+     *
+     * @param file file to save to
+     * @param t configuration to save
+     */
+    protected void save(File file, T t) {
+        save(file.toPath(), t);
+    }
 
+    /**
+     * Saves the configuration to the file, unless the file already has the same content.
+     * The file is replaced atomically, so it is never left partially written.
+     *
+     * @param path file to save to
+     * @param t configuration to save
+     * @return whether the file was written
+     */
+    protected boolean save(Path path, T t) {
+        try {
+            Path absolute = path.toAbsolutePath().normalize();
+            byte[] bytes = render(absolute, t);
+            byte[] hash = FileUtils.hash(bytes);
+            if (isUpToDate(absolute, bytes, hash)) return false;
+            FileUtils.writeAtomically(absolute, bytes);
+            BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+            writtenFiles.put(absolute, new WrittenFile(hash, attributes.size(), attributes.lastModifiedTime()));
+            written(absolute, attributes);
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Renders the configuration that is about to be saved to the file. Serializers can override
+     * this to reuse what they know about the current content of the file.
+     *
+     * @param path absolute path of the file
+     * @param t configuration to render
+     * @return content of the file
+     * @throws IOException if rendering fails
+     */
+    protected byte[] render(Path path, T t) throws IOException {
+        return render(t);
+    }
+
+    /**
+     * Called after the content last rendered for the file was written to it.
+     *
+     * @param path absolute path of the file
+     * @param attributes attributes of the file right after it was written
+     */
+    protected void written(Path path, BasicFileAttributes attributes) {
+    }
+
+    private byte[] render(T t) throws IOException {
+        StringWriter writer = new StringWriter();
+        write(writer, t);
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether the file already has the given content. The hash remembered from
+     * the last write is used as long as the file was not touched since, otherwise the
+     * content on disk is compared.
+     */
+    private boolean isUpToDate(Path path, byte[] bytes, byte[] hash) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            writtenFiles.remove(path);
+            return false;
+        }
+        if (attributes.size() != bytes.length) return false;
+        WrittenFile written = writtenFiles.get(path);
+        if (written != null && written.size() == attributes.size()
+                && written.lastModified().equals(attributes.lastModifiedTime()))
+            return MessageDigest.isEqual(written.hash(), hash);
+        if (!Arrays.equals(Files.readAllBytes(path), bytes)) return false;
+        writtenFiles.put(path, new WrittenFile(hash, attributes.size(), attributes.lastModifiedTime()));
+        return true;
+    }
+
+    /**
+     * Saves the configuration to the file, see {@link #saveIfChanged(Path, Configuration)}.
+     */
     public void save(File file, Configuration configuration) {
-        save(file, serialize(configuration).getConfig());
+        saveIfChanged(file.toPath(), configuration);
+    }
+
+    /**
+     * Saves the configuration to the file, see {@link #saveIfChanged(Path, Configuration)}.
+     */
+    public void save(Path path, Configuration configuration) {
+        saveIfChanged(path, configuration);
+    }
+
+    /**
+     * Saves the configuration to the file, unless the file already has the same content.
+     * <p>
+     * {@link TrackedConfiguration Tracked configurations} are not serialized at all if they did not
+     * change since they were last saved to the same file and the file was not modified since.
+     *
+     * @return whether the file was written, {@code false} if it already had the same content
+     * @see #save(Path, Object)
+     */
+    public boolean saveIfChanged(Path path, Configuration configuration) {
+        if (!(configuration instanceof TrackedConfiguration tracked))
+            return save(path, serialize(configuration).getConfig());
+        Path absolute = path.toAbsolutePath().normalize();
+        TrackedConfiguration.Tracker tracker = tracked.tracker();
+        WrittenFile written = writtenFiles.get(absolute);
+        if (written != null && tracker.synced() instanceof TrackedSave(WrittenFile file, long stamp)
+                && file == written && tracked.lastModified() <= stamp && isUnmodified(absolute, written))
+            return false;
+        // changes made while serializing are stamped later, so the next save writes them
+        long stamp = TrackedConfiguration.Tracker.clock();
+        boolean saved = save(absolute, serialize(configuration).getConfig());
+        WrittenFile file = writtenFiles.get(absolute);
+        tracker.synced(file != null ? new TrackedSave(file, stamp) : null);
+        return saved;
+    }
+
+    private static boolean isUnmodified(Path path, WrittenFile written) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return written.size() == attributes.size() && written.lastModified().equals(attributes.lastModifiedTime());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the configuration to the stream encoded in UTF-8.
+     * The stream is flushed, but not closed.
+     *
+     * @param outputStream stream to write to
+     * @param configuration configuration to write
+     */
+    public void save(OutputStream outputStream, Configuration configuration) {
+        save(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), configuration);
+    }
+
+    /**
+     * Writes the configuration to the writer.
+     * The writer is flushed, but not closed.
+     *
+     * @param writer writer to write to
+     * @param configuration configuration to write
+     */
+    public void save(Writer writer, Configuration configuration) {
+        T t = serialize(configuration).getConfig();
+        try {
+            Writer buffered = writer instanceof BufferedWriter || writer instanceof StringWriter
+                    ? writer
+                    : new BufferedWriter(writer, BUFFER_SIZE);
+            write(buffered, t);
+            buffered.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param configuration configuration to write
+     * @return the configuration encoded in UTF-8
+     */
+    public byte[] saveToBytes(Configuration configuration) {
+        try {
+            return render(serialize(configuration).getConfig());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -34,20 +334,502 @@ public abstract class ConfigSerializer<T> {
         return (ConfigAdapter<T>) Serializer.serialize(serializer, configuration);
     }
 
-    public abstract T load(File file);
+    /**
+     * Loads the file, see {@link #load(Path)}.
+     *
+     * @param file file to load
+     * @return the configuration
+     */
+    public T load(File file) {
+        return load(file.toPath());
+    }
+
+    public T load(Path path) {
+        try (FileChannel channel = FileChannel.open(path, READ);
+             Reader reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE)) {
+            return read(reader);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the content of a file that was already read into memory, e.g. by a {@link ConfigWatcher}.
+     * Serializers that keep track of the files they load override this together with {@link #load(Path)}.
+     *
+     * @param path absolute path of the file
+     * @param bytes content of the file encoded in UTF-8
+     * @param attributes attributes the file had when it was read
+     * @return the configuration
+     */
+    protected T load(Path path, byte[] bytes, BasicFileAttributes attributes) {
+        return load(bytes);
+    }
+
+    /**
+     * Reads a configuration encoded in UTF-8 from the stream.
+     * The stream is not closed.
+     *
+     * @param inputStream stream to read from
+     * @return the configuration
+     */
+    public T load(InputStream inputStream) {
+        return load(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a configuration from the reader.
+     * The reader is not closed.
+     *
+     * @param reader reader to read from
+     * @return the configuration
+     */
+    public T load(Reader reader) {
+        try {
+            return read(reader);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param bytes configuration encoded in UTF-8
+     * @return the configuration
+     */
+    public T load(byte[] bytes) {
+        return load(new StringReader(new String(bytes, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer, the position of the buffer is not changed.
+     *
+     * @param buffer configuration encoded in UTF-8
+     * @return the configuration
+     */
+    public T load(ByteBuffer buffer) {
+        return load(new StringReader(StandardCharsets.UTF_8.decode(buffer.duplicate()).toString()));
+    }
+
+    /**
+     * Reads only the given keys of a file, see {@link #read(Reader, KeyProjection)}.
+     *
+     * @param path file to read
+     * @param projection keys to read
+     * @return the configuration
+     */
+    public T load(Path path, KeyProjection projection) {
+        try (FileChannel channel = FileChannel.open(path, READ);
+             Reader reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE)) {
+            return read(reader, projection);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads only the given keys, see {@link #read(Reader, KeyProjection)}.
+     * The reader is not closed.
+     *
+     * @param reader reader to read from
+     * @param projection keys to read
+     * @return the configuration
+     */
+    public T load(Reader reader, KeyProjection projection) {
+        try {
+            return read(reader, projection);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
     public <C extends Configuration> C load(File file, Class<C> configurationClass) {
         return load(load(file), configurationClass);
     }
 
+    public <C extends Configuration> C load(Path path, Class<C> configurationClass) {
+        return load(load(path), configurationClass);
+    }
+
+    public <C extends Configuration> C load(InputStream inputStream, Class<C> configurationClass) {
+        return load(load(inputStream), configurationClass);
+    }
+
+    public <C extends Configuration> C load(Reader reader, Class<C> configurationClass) {
+        return load(load(reader), configurationClass);
+    }
+
+    public <C extends Configuration> C load(byte[] bytes, Class<C> configurationClass) {
+        return load(load(bytes), configurationClass);
+    }
+
+    public <C extends Configuration> C load(ByteBuffer buffer, Class<C> configurationClass) {
+        return load(load(buffer), configurationClass);
+    }
+
+    /**
+     * Loads the file into a holder that can later publish new versions of it,
+     * see {@link LiveConfig#reload()} and {@link LiveConfig#watch(ConfigWatcher)}.
+     *
+     * @param path file to load
+     * @param configurationClass class of the configuration
+     * @return holder of the loaded configuration
+     * @param <C> configuration type
+     */
+    public <C extends Configuration> LiveConfig<C> loadLive(Path path, Class<C> configurationClass) {
+        Path absolute = path.toAbsolutePath().normalize();
+        try {
+            FileTime checked = ConfigWatcher.FileState.now();
+            BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+            byte[] bytes = Files.readAllBytes(absolute);
+            C configuration = load(load(absolute, bytes, attributes), configurationClass);
+            ConfigWatcher.FileState loaded = ConfigWatcher.FileState.of(bytes, attributes, checked);
+            return new LiveConfig<>(configuration, new LiveConfig.Source<>(this, path, configurationClass, loaded));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads the file using the executor of this serializer.
+     *
+     * @param path file to load
+     * @param configurationClass class of the configuration
+     * @return future completed with the loaded configuration
+     * @param <C> configuration type
+     */
+    public <C extends Configuration> CompletableFuture<C> loadAsync(Path path, Class<C> configurationClass) {
+        return CompletableFuture.supplyAsync(() -> load(path, configurationClass), properties.executor());
+    }
+
+    /**
+     * Loads the file using the executor of this serializer. The returned future
+     * is completed on the given executor, so callbacks attached to it run there.
+     *
+     * @param path file to load
+     * @param configurationClass class of the configuration
+     * @param completionExecutor executor the returned future is completed on
+     * @return future completed with the loaded configuration
+     * @param <C> configuration type
+     */
+    public <C extends Configuration> CompletableFuture<C> loadAsync(Path path, Class<C> configurationClass, Executor completionExecutor) {
+        return completeOn(loadAsync(path, configurationClass), completionExecutor);
+    }
+
+    public <C extends Configuration> CompletableFuture<C> loadAsync(File file, Class<C> configurationClass) {
+        return loadAsync(file.toPath(), configurationClass);
+    }
+
+    public <C extends Configuration> CompletableFuture<C> loadAsync(File file, Class<C> configurationClass, Executor completionExecutor) {
+        return loadAsync(file.toPath(), configurationClass, completionExecutor);
+    }
+
+    /**
+     * Saves the configuration using the executor of this serializer.
+     * <p>
+     * The configuration is serialized on the calling thread, so later changes
+     * to it do not affect the save, only rendering and I/O happen asynchronously.
+     *
+     * @param path file to save to
+     * @param configuration configuration to save
+     * @return future completed with whether the file was written
+     * @see #saveIfChanged(Path, Configuration)
+     */
+    public CompletableFuture<Boolean> saveAsync(Path path, Configuration configuration) {
+        T t;
+        try {
+            t = serialize(configuration).getConfig();
+        } catch (Throwable throwable) {
+            return CompletableFuture.failedFuture(throwable);
+        }
+        return CompletableFuture.supplyAsync(() -> save(path, t), properties.executor());
+    }
+
+    /**
+     * Saves the configuration using the executor of this serializer. The returned future
+     * is completed on the given executor, so callbacks attached to it run there.
+     *
+     * @param path file to save to
+     * @param configuration configuration to save
+     * @param completionExecutor executor the returned future is completed on
+     * @return future completed with whether the file was written
+     * @see #saveAsync(Path, Configuration)
+     */
+    public CompletableFuture<Boolean> saveAsync(Path path, Configuration configuration, Executor completionExecutor) {
+        return completeOn(saveAsync(path, configuration), completionExecutor);
+    }
+
+    public CompletableFuture<Boolean> saveAsync(File file, Configuration configuration) {
+        return saveAsync(file.toPath(), configuration);
+    }
+
+    public CompletableFuture<Boolean> saveAsync(File file, Configuration configuration, Executor completionExecutor) {
+        return saveAsync(file.toPath(), configuration, completionExecutor);
+    }
+
+    private static <R> CompletableFuture<R> completeOn(CompletableFuture<R> future, Executor executor) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        future.whenComplete((value, throwable) -> {
+            try {
+                executor.execute(() -> {
+                    if (throwable != null) result.completeExceptionally(throwable);
+                    else result.complete(value);
+                });
+            } catch (RuntimeException e) {
+                // e.g. the executor was shut down, the future would otherwise never complete
+                if (throwable != null) e.addSuppressed(throwable);
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Loads all files in the directory.
+     *
+     * @param directory directory to load the files from
+     * @param configurationClass class of the configurations
+     * @return loaded configurations and errors of the files that could not be loaded
+     * @param <C> configuration type
+     * @see #loadAll(Map)
+     */
+    public <C extends Configuration> BulkLoadResult<C> loadAll(Path directory, Class<C> configurationClass) {
+        return loadAll(directory, "*", configurationClass);
+    }
+
+    /**
+     * Loads all files in the directory with names matching the glob pattern, e.g. {@code *.yml}.
+     * Subdirectories are not searched.
+     *
+     * @param directory directory to load the files from
+     * @param glob glob pattern the file names have to match
+     * @param configurationClass class of the configurations
+     * @return loaded configurations and errors of the files that could not be loaded
+     * @param <C> configuration type
+     * @see #loadAll(Map)
+     */
+    public <C extends Configuration> BulkLoadResult<C> loadAll(Path directory, String glob, Class<C> configurationClass) {
+        Map<Path, Class<C>> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path)) files.put(path, configurationClass);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return loadAll(files);
+    }
+
+    /**
+     * Loads the files in parallel using the executor of this serializer,
+     * with at most as many files being loaded at once as there are processors.
+     * <p>
+     * A file that fails to load does not affect the others, its exception is collected
+     * in {@link BulkLoadResult#failed()} instead.
+     *
+     * @param files files to load with the classes of their configurations
+     * @return loaded configurations and errors of the files that could not be loaded
+     * @param <C> common configuration type
+     */
+    public <C extends Configuration> BulkLoadResult<C> loadAll(Map<Path, ? extends Class<? extends C>> files) {
+        Semaphore permits = new Semaphore(Runtime.getRuntime().availableProcessors());
+        Map<Path, CompletableFuture<? extends C>> futures = LinkedHashMap.newLinkedHashMap(files.size());
+        files.forEach((path, configurationClass) -> {
+            CompletableFuture<? extends C> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        return load(path, configurationClass);
+                    } finally {
+                        permits.release();
+                    }
+                }, properties.executor());
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.put(path, future);
+        });
+        Map<Path, C> loaded = LinkedHashMap.newLinkedHashMap(files.size());
+        Map<Path, Throwable> failed = new LinkedHashMap<>();
+        futures.forEach((path, future) -> {
+            try {
+                loaded.put(path, future.join());
+            } catch (CompletionException | CancellationException e) {
+                failed.put(path, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return new BulkLoadResult<>(Collections.unmodifiableMap(loaded), Collections.unmodifiableMap(failed));
+    }
+
     public <C extends Configuration> C load(T config, Class<C> configurationClass) {
         ConfigAdapter<T> adapter = newAdapter();
         adapter.load(config);
         return load(adapter, configurationClass);
     }
 
-    private <C extends Configuration> C load(ConfigAdapter<T> adapter, Class<C> configurationClass) {
+    /**
+     * Loads a configuration class declaring only some of the keys of the file, such as
+     * a few values needed by a tool. Keys outside of the class are skipped while reading
+     * if the format supports it, and are never reported as unexpected.
+     *
+     * @param path file to load
+     * @param projectionClass class declaring the keys to load
+     * @return the loaded configuration
+     * @param <C> configuration type
+     * @see #projectionOf(Class)
+     */
+    public <C extends Configuration> C loadProjection(Path path, Class<C> projectionClass) {
+        return loadProjection(load(path, projectionOf(projectionClass)), projectionClass);
+    }
+
+    /**
+     * @param reader reader to read from, it is not closed
+     * @param projectionClass class declaring the keys to load
+     * @return the loaded configuration
+     * @param <C> configuration type
+     * @see #loadProjection(Path, Class)
+     */
+    public <C extends Configuration> C loadProjection(Reader reader, Class<C> projectionClass) {
+        return loadProjection(load(reader, projectionOf(projectionClass)), projectionClass);
+    }
+
+    private <C extends Configuration> C loadProjection(T config, Class<C> projectionClass) {
+        ConfigAdapter<T> adapter = newAdapter();
+        adapter.load(config);
+        SerializerContext context = createContext(projectionClass);
+        ErrorHandler errorHandler = context.properties().errorHandler;
+        context.properties().errorHandler = (errorContext, error) -> {
+            if (error.type() != ErrorType.UNEXPECTED_KEY) errorHandler.handle(errorContext, error);
+        };
+        return load(adapter, projectionClass, context);
+    }
+
+    /**
+     * Returns the keys read by a configuration class. Sections are projected to the keys
+     * of their classes, all other values are included with everything under them.
+     *
+     * @param configurationClass configuration class
+     * @return projection of the keys of the class
+     */
+    public KeyProjection projectionOf(Class<? extends Configuration> configurationClass) {
+        Serializers.ConfigurationSerializer<?> serializer = getSerializerForConfigClass(configurationClass);
+        return projectionOf(serializer, configurationClass, new HashSet<>());
+    }
+
+    private KeyProjection projectionOf(Serializers.ConfigurationSerializer<?> serializer, Class<?> cls, Set<Class<?>> visiting) {
+        if (!visiting.add(cls)) return KeyProjection.ALL; // recursive sections
+        Map<String, KeyProjection> children = new LinkedHashMap<>();
+        for (ConfigNode<?> node : serializer.getNodes(cls)) {
+            Class<?> section = sectionType(node.getAnnotatedType());
+            children.put(
+                    node.getFormattedName(),
+                    section != null ? projectionOf(serializer, section, visiting) : KeyProjection.ALL
+            );
+        }
+        visiting.remove(cls);
+        return KeyProjection.ofChildren(children);
+    }
+
+    /**
+     * @return class of the section read by the node, {@code null} if it is not read as a section
+     */
+    private @Nullable Class<?> sectionType(AnnotatedType type) {
+        if (type.isAnnotationPresent(ReadWith.class) || type.isAnnotationPresent(SerializeWith.class)) return null;
+        Class<?> cls = JavaUtils.asClass(type);
+        if (cls == LazySection.class && type instanceof AnnotatedParameterizedType parameterized)
+            return sectionType(parameterized.getAnnotatedActualTypeArguments()[0]);
+        if (!Configuration.class.isAssignableFrom(cls) || properties.serializerRegistry().serializerExists(cls)) return null;
+        return cls;
+    }
+
+    /**
+     * Creates a read-only view of a configuration implementing the given interface, see {@link ConfigView}.
+     * Nothing is deserialized up front, each method reads its value the first time it is called.
+     *
+     * @param config configuration to view
+     * @param viewInterface interface whose methods return the values of the configuration
+     * @return view of the configuration
+     * @param <V> view type
+     * @throws IllegalArgumentException if the interface can not be implemented
+     */
+    public <V> V view(T config, Class<V> viewInterface) {
+        ConfigAdapter<T> adapter = newAdapter();
+        adapter.load(config);
+        return viewInterface.cast(viewBinding(viewInterface).create(adapter));
+    }
+
+    public <V> V loadView(File file, Class<V> viewInterface) {
+        return view(load(file), viewInterface);
+    }
+
+    public <V> V loadView(Path path, Class<V> viewInterface) {
+        return view(load(path), viewInterface);
+    }
+
+    private ConfigView.Binding viewBinding(Class<?> viewInterface) {
+        return views.computeIfAbsent(viewInterface, type -> ConfigView.bind(type, createContext(type), this::viewBinding));
+    }
+
+    public List<String> loadInto(File file, Configuration configuration) {
+        return loadInto(load(file), configuration);
+    }
+
+    public List<String> loadInto(Path path, Configuration configuration) {
+        return loadInto(load(path), configuration);
+    }
+
+    /**
+     * Loads the configuration into an existing instance instead of creating a new one.
+     * Only the fields whose values differ are written and sections held by fields
+     * are updated in place, so references to the instance and its sections stay valid.
+     * Optional keys that are missing keep their current values.
+     * <p>
+     * The fields are written one by one, readers on other threads may observe
+     * a partially updated instance.
+     *
+     * @param config configuration to load
+     * @param configuration instance to update, must not be a record
+     * @return dot separated names of the changed fields, e.g. {@code database.pool.size}
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> loadInto(T config, Configuration configuration) {
+        Class<Configuration> configurationClass = (Class<Configuration>) configuration.getClass();
+        if (configurationClass.isRecord())
+            throw new IllegalArgumentException("Records can not be updated in place: " + configurationClass);
+        ConfigAdapter<T> adapter = newAdapter();
+        adapter.load(config);
         SerializerContext context = createContext(configurationClass);
+        Serializers.ConfigurationSerializer<Configuration> serializer =
+                new Serializers.ConfigurationSerializer<>(configurationClass, context);
+        SingletonDataVisitor visitor = new SingletonDataVisitor(adapter).withFlags(DataVisitor.READ_ACCESS);
+        List<String> changes = new ArrayList<>();
+        if (!serializer.deserializeInto(configuration, visitor, context.errorContainer(), "", changes))
+            throw new IllegalArgumentException("Could not load configuration: " + configurationClass);
+        return changes.isEmpty() ? List.of() : Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Compares two instances of the same configuration class, see {@link ConfigDiff}.
+     *
+     * @param previous previous configuration
+     * @param current current configuration
+     * @return changes from the previous to the current configuration
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConfigDiff diff(Configuration previous, Configuration current) {
+        Map<Class<?>, List<ConfigNode<?>>> nodes = new ConcurrentHashMap<>();
+        return ConfigDiff.between(
+                type -> nodes.computeIfAbsent(type, cls -> getSerializerForConfigClass((Class) cls).getNodes(cls)),
+                previous,
+                current
+        );
+    }
+
+    private <C extends Configuration> C load(ConfigAdapter<T> adapter, Class<C> configurationClass) {
+        return load(adapter, configurationClass, createContext(configurationClass));
+    }
+
+    private <C extends Configuration> C load(ConfigAdapter<T> adapter, Class<C> configurationClass, SerializerContext context) {
         Serializers.ConfigurationSerializer<C> serializer =
                 new Serializers.ConfigurationSerializer<>(configurationClass, context);
         C configuration = Serializer.deserialize(serializer, adapter, context.errorContainer());
@@ -69,11 +851,12 @@ public abstract class ConfigSerializer<T> {
         return new Serializers.ConfigurationSerializer<>(configurationClass, context);
     }
 
-    private <C extends Configuration> SerializerContext createContext(Class<C> configurationClass) {
+    private SerializerContext createContext(Class<?> configurationClass) {
         ConfigProperties properties = this.properties.clone();
 
         if (configurationClass.isAnnotationPresent(FormatKeyWith.class)) {
-            properties.keyFormatter = JavaUtils.newInstance(configurationClass.getAnnotation(FormatKeyWith.class).value());
+            Class<? extends KeyFormatter> formatterClass = configurationClass.getAnnotation(FormatKeyWith.class).value();
+            properties.keyFormatter = annotatedKeyFormatters.computeIfAbsent(formatterClass, JavaUtils::newInstance);
         }
 
         return new SerializerContext(properties, this::newAdapter);
@@ -87,6 +870,18 @@ public abstract class ConfigSerializer<T> {
         return type.cast(getProperties());
     }
 
+    /**
+     * Marker of a tracked configuration saved to a file.
+     *
+     * @param file the file as it was written
+     * @param stamp {@link TrackedConfiguration.Tracker#clock() clock} before the configuration was serialized
+     */
+    private record TrackedSave(WrittenFile file, long stamp) {
+    }
+
+    private record WrittenFile(byte[] hash, long size, FileTime lastModified) {
+    }
+
     protected abstract static class Builder<S extends ConfigSerializer<?>, P extends ConfigProperties, B extends Builder<S, P, B>> {
 
         protected final P properties;
@@ -150,6 +945,18 @@ public abstract class ConfigSerializer<T> {
             return getThis();
         }
 
+        /**
+         * Sets the executor of the asynchronous loads and saves,
+         * by default each runs in its own virtual thread.
+         *
+         * @param executor executor to use
+         * @return this
+         */
+        public B executor(Executor executor) {
+            properties.executor = executor;
+            return getThis();
+        }
+
         protected abstract B getThis();
 
         protected abstract S build();
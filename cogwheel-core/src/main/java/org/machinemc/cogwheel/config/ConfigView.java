@@ -0,0 +1,213 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.machinemc.cogwheel.DataVisitor;
+import org.machinemc.cogwheel.SingletonDataVisitor;
+import org.machinemc.cogwheel.annotations.FormatKeyWith;
+import org.machinemc.cogwheel.annotations.Key;
+import org.machinemc.cogwheel.annotations.ReadWith;
+import org.machinemc.cogwheel.annotations.SerializeWith;
+import org.machinemc.cogwheel.keyformatter.KeyFormatter;
+import org.machinemc.cogwheel.serialization.Serializer;
+import org.machinemc.cogwheel.serialization.SerializerContext;
+import org.machinemc.cogwheel.util.JavaUtils;
+import org.machinemc.cogwheel.util.error.ErrorContainer;
+import org.machinemc.cogwheel.util.error.ErrorEntry;
+import org.machinemc.cogwheel.util.error.ErrorType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * Base class of the read-only views created by {@link ConfigSerializer#view(Object, Class)}.
+ * <p>
+ * A view implements an interface whose methods take no parameters, each method reads the value
+ * of its key from the loaded configuration the first time it is called and returns the same
+ * value afterwards. Keys are named after the methods following the same rules as fields,
+ * {@link Key @Key}, {@link FormatKeyWith @FormatKeyWith} and
+ * {@link org.machinemc.cogwheel.annotations.Optional @Optional} can be used on the methods.
+ * Methods returning other interfaces that have no registered serializer read sections as views.
+ * <p>
+ * The implementation of each interface is generated once, its methods call {@link #value(int)}
+ * directly rather than through reflection. It is defined next to the interface, in the class loader
+ * of the interface, which therefore has to see the same {@code ConfigView} class as this library,
+ * e.g. interfaces of plugins whose loaders delegate to the loader of the library.
+ */
+public abstract class ConfigView {
+
+    private static final Object NOT_READ = new Object();
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final ClassValue<ViewType> TYPES = new ClassValue<>() {
+        @Override
+        protected ViewType computeValue(Class<?> type) {
+            // defining the class is not idempotent, it must not run concurrently for the same interface
+            synchronized (ViewGenerator.class) {
+                return ViewGenerator.generate(type);
+            }
+        }
+    };
+
+    private final Binding binding;
+    private final ConfigAdapter<?> adapter;
+    private final Object[] values;
+
+    @ApiStatus.Internal
+    protected ConfigView(Binding binding, ConfigAdapter<?> adapter) {
+        this.binding = binding;
+        this.adapter = adapter;
+        this.values = new Object[binding.keys.length];
+        Arrays.fill(values, NOT_READ);
+    }
+
+    /**
+     * @param slot slot of the method
+     * @return value of the method, read on the first call
+     */
+    @ApiStatus.Internal
+    protected final @Nullable Object value(int slot) {
+        Object value = VALUES.getAcquire(values, slot);
+        if (value != NOT_READ) return value;
+        value = binding.read(slot, adapter);
+        VALUES.setRelease(values, slot, value);
+        return value;
+    }
+
+    /**
+     * @return the values that were already read, the other keys are not read by this method
+     */
+    @Override
+    public String toString() {
+        List<Method> methods = binding.type.methods();
+        StringJoiner joiner = new StringJoiner(", ", binding.type.viewInterface().getSimpleName() + "[", "]");
+        for (int i = 0; i < methods.size(); i++) {
+            Object value = VALUES.getAcquire(values, i);
+            if (value != NOT_READ) joiner.add(methods.get(i).getName() + "=" + JavaUtils.toString(value, "null"));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * @param viewInterface interface to implement
+     * @param context context of the serializer creating the views
+     * @param bindings bindings of the interfaces of nested views
+     * @return binding of the interface to the keys of the serializer
+     */
+    static Binding bind(Class<?> viewInterface, SerializerContext context, Function<Class<?>, Binding> bindings) {
+        return new Binding(TYPES.get(viewInterface), context, bindings);
+    }
+
+    /**
+     * Generated implementation of a view interface.
+     *
+     * @param viewInterface the interface
+     * @param methods implemented methods, in the order of their slots
+     * @param constructor constructor of the implementation, {@code (Binding, ConfigAdapter)ConfigView}
+     */
+    record ViewType(Class<?> viewInterface, List<Method> methods, MethodHandle constructor) {
+    }
+
+    /**
+     * View interface bound to the keys and serializers of a configuration serializer.
+     */
+    static final class Binding {
+
+        private final ViewType type;
+        private final SerializerContext context;
+        private final Function<Class<?>, Binding> bindings;
+        private final String[] keys;
+        private final boolean[] optional;
+
+        private Binding(ViewType type, SerializerContext context, Function<Class<?>, Binding> bindings) {
+            this.type = type;
+            this.context = context;
+            this.bindings = bindings;
+            List<Method> methods = type.methods();
+            this.keys = new String[methods.size()];
+            this.optional = new boolean[methods.size()];
+            FormatKeyWith interfaceFormatter = type.viewInterface().getAnnotation(FormatKeyWith.class);
+            for (int i = 0; i < methods.size(); i++) {
+                Method method = methods.get(i);
+                Key key = method.getAnnotation(Key.class);
+                String name = key != null ? key.value() : method.getName();
+                FormatKeyWith formatWith = method.getAnnotation(FormatKeyWith.class);
+                if (formatWith == null) formatWith = interfaceFormatter;
+                KeyFormatter formatter = formatWith != null
+                        ? JavaUtils.newInstance(formatWith.value())
+                        : context.properties().keyFormatter();
+                keys[i] = formatter != null ? formatter.format(name) : name;
+                optional[i] = method.isAnnotationPresent(org.machinemc.cogwheel.annotations.Optional.class);
+            }
+        }
+
+        /**
+         * @param adapter loaded configuration
+         * @return view of the configuration
+         */
+        ConfigView create(ConfigAdapter<?> adapter) {
+            try {
+                return (ConfigView) type.constructor().invokeExact(this, adapter);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private @Nullable Object read(int slot, ConfigAdapter<?> adapter) {
+            Method method = type.methods().get(slot);
+            Class<?> returnType = method.getReturnType();
+            AnnotatedType annotatedType = method.getAnnotatedReturnType();
+            SerializerContext context = this.context.withType(annotatedType);
+            Object primitive = adapter.getPrimitive(keys[slot]).orElse(null);
+            if (primitive == null) {
+                if (!optional[slot])
+                    handleError(context, ErrorType.KEY_NOT_FOUND, "Required key '" + keys[slot] + "' is missing");
+                return JavaUtils.getDefaultValue(returnType);
+            }
+            if (isNestedView(annotatedType, returnType)) {
+                ConfigAdapter<?> section = new SingletonDataVisitor(primitive)
+                        .withFlags(DataVisitor.READ_ACCESS)
+                        .readConfig()
+                        .orElse(null);
+                if (section != null) return bindings.apply(returnType).create(section);
+                handleError(context, ErrorType.MISMATCHED_TYPES, "Key '" + keys[slot] + "' is not a section");
+                return null;
+            }
+            Class<?> type = returnType.isPrimitive() ? JavaUtils.wrapPrimitiveClass(returnType) : returnType;
+            Serializer<?> readWith = context.readWith();
+            if (readWith == null) {
+                if (type.isInstance(primitive)) return primitive;
+                handleError(context, ErrorType.SERIALIZER_NOT_FOUND, "Couldn't deserialize type '" + type.getName()
+                        + "' of key '" + keys[slot] + "'. Did you register a serializer for it?");
+                return JavaUtils.getDefaultValue(returnType);
+            }
+            ErrorContainer errorContainer = new ErrorContainer();
+            Object value = Serializer.deserialize((Serializer) readWith, primitive, errorContainer);
+            errorContainer.handleErrors(context);
+            return value != null ? value : JavaUtils.getDefaultValue(returnType);
+        }
+
+        private boolean isNestedView(AnnotatedType annotatedType, Class<?> type) {
+            if (!type.isInterface() || Configuration.class.isAssignableFrom(type)) return false;
+            if (annotatedType.isAnnotationPresent(ReadWith.class) || annotatedType.isAnnotationPresent(SerializeWith.class))
+                return false;
+            return context.registry().getSerializerFactory(type) == null;
+        }
+
+        private static void handleError(SerializerContext context, ErrorType type, String message) {
+            context.properties().errorHandler().handle(context, new ErrorEntry(type, message));
+        }
+
+    }
+
+}
@@ -0,0 +1,352 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.Nullable;
+import org.machinemc.cogwheel.serialization.SerializerContext;
+import org.machinemc.cogwheel.util.FileUtils;
+import org.machinemc.cogwheel.util.error.ErrorEntry;
+import org.machinemc.cogwheel.util.error.ErrorType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches configuration files and reloads them when they change.
+ * <p>
+ * Bursts of events are coalesced, a file is reloaded once no event arrived for the debounce
+ * duration, and only if its content differs from the last load. The file is read only if its
+ * size or modification time changed, or if it was modified too recently to rely on them.
+ * The directories of the files are watched rather than the files themselves, so editors
+ * that save by renaming a new file over the old one are supported.
+ * <p>
+ * One thread is used per file system, reloads run on the executor of the serializer.
+ */
+public final class ConfigWatcher implements Closeable {
+
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(100);
+
+    /**
+     * Coarsest modification time resolution of common file systems, files modified less than
+     * this long before their attributes were read are compared by content.
+     */
+    private static final long MODIFICATION_TIME_RESOLUTION_MILLIS = 2000;
+
+    private final ConfigSerializer<?> serializer;
+    private final long debounceNanos;
+    private final Map<FileSystem, FileSystemWatcher> watchers = new HashMap<>();
+    private boolean closed;
+
+    public ConfigWatcher(ConfigSerializer<?> serializer) {
+        this(serializer, DEFAULT_DEBOUNCE);
+    }
+
+    public ConfigWatcher(ConfigSerializer<?> serializer, Duration debounce) {
+        this.serializer = Objects.requireNonNull(serializer, "serializer");
+        this.debounceNanos = debounce.toNanos();
+    }
+
+    /**
+     * Watches the file, errors of the reloads are reported to the {@link ConfigProperties#errorHandler() error handler}
+     * of the serializer.
+     *
+     * @see #watch(Path, Class, Consumer, BiConsumer)
+     */
+    public <C extends Configuration> Registration watch(Path path, Class<C> configurationClass, Consumer<? super C> callback) {
+        return watch(path, configurationClass, callback, this::reportError);
+    }
+
+    /**
+     * Watches the file and passes the newly loaded configuration to the callback each time it changes.
+     * The file does not have to exist yet, but its directory does.
+     *
+     * @param path file to watch
+     * @param configurationClass class of the configuration
+     * @param callback receives the reloaded configurations
+     * @param errorHandler receives the exceptions of failed reloads
+     * @return registration that can be used to stop watching the file
+     * @param <C> configuration type
+     */
+    public <C extends Configuration> Registration watch(Path path,
+                                                        Class<C> configurationClass,
+                                                        Consumer<? super C> callback,
+                                                        BiConsumer<Path, Throwable> errorHandler) {
+        return watch(path, configurationClass, callback, errorHandler, null);
+    }
+
+    /**
+     * Watches the file, changes are detected against the state of the file the current
+     * configuration was loaded from, or against the file as it is now if {@code loaded} is null.
+     */
+    synchronized <C extends Configuration> Registration watch(Path path,
+                                                              Class<C> configurationClass,
+                                                              Consumer<? super C> callback,
+                                                              BiConsumer<Path, Throwable> errorHandler,
+                                                              @Nullable FileState loaded) {
+        if (closed) throw new IllegalStateException("Watcher is closed");
+        Path absolute = path.toAbsolutePath().normalize();
+        FileSystemWatcher watcher = watchers.get(absolute.getFileSystem());
+        try {
+            if (watcher == null) {
+                watcher = new FileSystemWatcher(absolute.getFileSystem());
+                watchers.put(absolute.getFileSystem(), watcher);
+            }
+            Registration registration = new Registration(
+                    watcher,
+                    absolute,
+                    (bytes, attributes) -> callback.accept(load(absolute, bytes, attributes, configurationClass)),
+                    errorHandler,
+                    loaded != null ? loaded : FileState.read(absolute)
+            );
+            watcher.register(registration);
+            return registration;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    void reportError(Path path, Throwable throwable) {
+        ConfigProperties properties = serializer.getProperties();
+        properties.errorHandler().handle(
+                new SerializerContext(properties, serializer::newAdapter),
+                new ErrorEntry(ErrorType.CUSTOM, "Could not reload '" + path + "': " + throwable)
+        );
+    }
+
+    private <T, C extends Configuration> C load(Path path, byte[] bytes, BasicFileAttributes attributes, Class<C> configurationClass) {
+        @SuppressWarnings("unchecked")
+        ConfigSerializer<T> serializer = (ConfigSerializer<T>) this.serializer;
+        return serializer.load(serializer.load(path, bytes, attributes), configurationClass);
+    }
+
+    /**
+     * Stops watching all files.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        watchers.values().forEach(FileSystemWatcher::close);
+        watchers.clear();
+    }
+
+    /**
+     * A watched file.
+     */
+    public final class Registration {
+
+        private final FileSystemWatcher watcher;
+        private final Path path;
+        private final BiConsumer<byte[], BasicFileAttributes> reload;
+        private final BiConsumer<Path, Throwable> errorHandler;
+        private @Nullable FileState state;
+        private volatile boolean cancelled;
+
+        private Registration(FileSystemWatcher watcher,
+                             Path path,
+                             BiConsumer<byte[], BasicFileAttributes> reload,
+                             BiConsumer<Path, Throwable> errorHandler,
+                             @Nullable FileState state) {
+            this.watcher = watcher;
+            this.path = path;
+            this.reload = reload;
+            this.errorHandler = errorHandler;
+            this.state = state;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        /**
+         * Stops watching the file.
+         */
+        public void cancel() {
+            cancelled = true;
+            watcher.unregister(this);
+        }
+
+        private synchronized void reloadIfChanged() {
+            if (cancelled) return;
+            try {
+                FileTime checked = FileState.now();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    return; // deleted, possibly about to be replaced
+                }
+                FileState previous = state;
+                if (previous != null && previous.unchanged(attributes)) return;
+                byte[] bytes = Files.readAllBytes(path);
+                state = FileState.of(bytes, attributes, checked);
+                if (previous != null && MessageDigest.isEqual(previous.hash(), state.hash())) return;
+                reload.accept(bytes, attributes);
+            } catch (Throwable throwable) {
+                errorHandler.accept(path, throwable);
+            }
+        }
+
+    }
+
+    /**
+     * State of a file as it was read.
+     *
+     * @param size size of the file
+     * @param lastModified modification time of the file
+     * @param hash hash of the content of the file
+     * @param checked time the attributes of the file were read
+     */
+    record FileState(long size, FileTime lastModified, byte[] hash, FileTime checked) {
+
+        static FileState of(byte[] bytes, BasicFileAttributes attributes, FileTime checked) {
+            return new FileState(attributes.size(), attributes.lastModifiedTime(), FileUtils.hash(bytes), checked);
+        }
+
+        static @Nullable FileState read(Path path) throws IOException {
+            FileTime checked = now();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            if (!attributes.isRegularFile()) return null;
+            return of(Files.readAllBytes(path), attributes, checked);
+        }
+
+        static FileTime now() {
+            return FileTime.from(Instant.now());
+        }
+
+        /**
+         * Checks whether the file has still the same size and modification time, writes
+         * shortly before the state was read may not have changed the modification time.
+         */
+        boolean unchanged(BasicFileAttributes attributes) {
+            return size == attributes.size()
+                    && lastModified.equals(attributes.lastModifiedTime())
+                    && lastModified.toMillis() < checked.toMillis() - MODIFICATION_TIME_RESOLUTION_MILLIS;
+        }
+
+    }
+
+    /**
+     * Watches the directories of the registered files of one file system on its own thread.
+     */
+    private final class FileSystemWatcher {
+
+        private final WatchService watchService;
+        private final Map<Path, List<Registration>> files = new ConcurrentHashMap<>();
+        private final Map<Path, WatchKey> directories = new HashMap<>();
+        private final Map<Path, Long> pending = new HashMap<>(); // accessed only by the watcher thread
+
+        private FileSystemWatcher(FileSystem fileSystem) throws IOException {
+            watchService = fileSystem.newWatchService();
+            Thread.ofPlatform()
+                    .name("cogwheel-watcher-" + fileSystem)
+                    .daemon()
+                    .start(this::run);
+        }
+
+        private synchronized void register(Registration registration) throws IOException {
+            Path directory = registration.path.getParent();
+            if (!directories.containsKey(directory))
+                directories.put(directory, directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE));
+            files.computeIfAbsent(registration.path, path -> new CopyOnWriteArrayList<>()).add(registration);
+        }
+
+        private synchronized void unregister(Registration registration) {
+            List<Registration> registrations = files.get(registration.path);
+            if (registrations == null) return;
+            registrations.remove(registration);
+            if (!registrations.isEmpty()) return;
+            files.remove(registration.path);
+            Path directory = registration.path.getParent();
+            boolean used = files.keySet().stream().anyMatch(path -> directory.equals(path.getParent()));
+            if (used) return;
+            WatchKey key = directories.remove(directory);
+            if (key != null) key.cancel();
+        }
+
+        private void run() {
+            try {
+                while (true) {
+                    WatchKey key = pending.isEmpty()
+                            ? watchService.take()
+                            : watchService.poll(nextDeadline() - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    while (key != null) {
+                        handle(key);
+                        key = watchService.poll();
+                    }
+                    reloadDue();
+                }
+            } catch (ClosedWatchServiceException | InterruptedException ignored) {
+            }
+        }
+
+        private void handle(WatchKey key) {
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    files.keySet().stream()
+                            .filter(path -> directory.equals(path.getParent()))
+                            .forEach(this::schedule);
+                    continue;
+                }
+                Path path = directory.resolve((Path) event.context());
+                if (files.containsKey(path)) schedule(path);
+            }
+            key.reset();
+        }
+
+        private void schedule(Path path) {
+            pending.put(path, System.nanoTime() + debounceNanos);
+        }
+
+        private long nextDeadline() {
+            long next = Long.MAX_VALUE;
+            for (long deadline : pending.values()) next = Math.min(next, deadline);
+            return next;
+        }
+
+        private void reloadDue() {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, Long> entry = iterator.next();
+                if (entry.getValue() - now > 0) continue;
+                iterator.remove();
+                for (Registration registration : files.getOrDefault(entry.getKey(), List.of())) {
+                    try {
+                        serializer.getProperties().executor().execute(registration::reloadIfChanged);
+                    } catch (RejectedExecutionException e) {
+                        registration.errorHandler.accept(registration.path, e);
+                    }
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+    }
+
+}
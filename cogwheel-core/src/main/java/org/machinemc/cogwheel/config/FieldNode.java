@@ -23,6 +23,10 @@ public final class FieldNode extends ConfigNode<Field> {
         return JavaUtils.getValue(element, holder);
     }
 
+    public boolean setValue(Object holder, Object value) {
+        return JavaUtils.setValue(element, holder, value);
+    }
+
     @Override
     public Field getAnnotatedElement() {
         return element;
@@ -0,0 +1,138 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Tree of the keys to read from a configuration, everything outside of it can be skipped
+ * by readers of the formats that support it.
+ * <p>
+ * A projection either includes everything under its key, or only its children.
+ *
+ * @see ConfigSerializer#load(java.nio.file.Path, KeyProjection)
+ * @see ConfigSerializer#loadProjection(java.nio.file.Path, Class)
+ */
+public final class KeyProjection {
+
+    /**
+     * Projection including everything.
+     */
+    public static final KeyProjection ALL = new KeyProjection(null);
+
+    private final @Nullable Map<String, KeyProjection> children;
+
+    private KeyProjection(@Nullable Map<String, KeyProjection> children) {
+        this.children = children;
+    }
+
+    /**
+     * Creates a projection of keys separated by dots, e.g. {@code server.port},
+     * including everything under each of them.
+     *
+     * @param paths formatted keys
+     * @return projection of the keys
+     */
+    public static KeyProjection of(String... paths) {
+        return of(Arrays.asList(paths));
+    }
+
+    /**
+     * @param paths formatted keys separated by dots
+     * @return projection of the keys
+     * @see #of(String...)
+     */
+    public static KeyProjection of(Collection<String> paths) {
+        Builder builder = new Builder();
+        for (String path : paths) {
+            Builder node = builder;
+            for (String key : Objects.requireNonNull(path, "path").split("\\.", -1)) {
+                if (node.all) break;
+                node = node.children.computeIfAbsent(key, k -> new Builder());
+            }
+            node.all = true;
+            node.children.clear();
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param children projections of the child keys
+     * @return projection including only the given child keys
+     */
+    public static KeyProjection ofChildren(Map<String, KeyProjection> children) {
+        return new KeyProjection(Collections.unmodifiableMap(new LinkedHashMap<>(children)));
+    }
+
+    /**
+     * @return whether everything under the key is included
+     */
+    public boolean includesAll() {
+        return children == null;
+    }
+
+    /**
+     * @param key formatted key
+     * @return projection of the child key, {@code null} if it is not included
+     */
+    public @Nullable KeyProjection child(String key) {
+        return children == null ? ALL : children.get(key);
+    }
+
+    /**
+     * @return keys of the included children, empty if everything is included
+     */
+    public Set<String> keys() {
+        return children == null ? Set.of() : children.keySet();
+    }
+
+    /**
+     * Checks whether a key of a flat format, where nested keys are separated by dots, is included.
+     * Keys of sections that contain included keys are included as well.
+     *
+     * @param path formatted keys separated by dots
+     * @return whether the key is included
+     */
+    public boolean includes(String path) {
+        KeyProjection projection = this;
+        int start = 0;
+        while (!projection.includesAll()) {
+            int end = path.indexOf('.', start);
+            projection = projection.child(end == -1 ? path.substring(start) : path.substring(start, end));
+            if (projection == null) return false;
+            if (end == -1) return true;
+            start = end + 1;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof KeyProjection other && Objects.equals(children, other.children);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(children);
+    }
+
+    @Override
+    public String toString() {
+        return children == null ? "*" : children.toString();
+    }
+
+    private static final class Builder {
+
+        private final Map<String, Builder> children = new LinkedHashMap<>();
+        private boolean all;
+
+        private KeyProjection build() {
+            if (all) return ALL;
+            Map<String, KeyProjection> built = new LinkedHashMap<>();
+            children.forEach((key, child) -> built.put(key, child.build()));
+            return new KeyProjection(Collections.unmodifiableMap(built));
+        }
+
+    }
+
+}
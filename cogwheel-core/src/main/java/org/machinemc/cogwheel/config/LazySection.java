@@ -0,0 +1,154 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Holder of a configuration section that is deserialized only once it is first accessed.
+ * <p>
+ * Declaring a section field with this type keeps its serialized content when the configuration
+ * is loaded, the section is deserialized on the first call to {@link #get()}, so loading
+ * does not pay for sections that are never used:
+ * <pre>{@code
+ * public class ServerConfig implements Configuration {
+ *
+ *     private LazySection<WorldConfig> nether = LazySection.of(new WorldConfig());
+ *
+ *     public WorldConfig getNether() {
+ *         return nether.get();
+ *     }
+ *
+ * }
+ * }</pre>
+ * The section is deserialized at most once, even if it is accessed by multiple threads at the same time.
+ * Errors in its content are reported to the error handler of the serializer on the first access
+ * rather than when the configuration is loaded. Serializing the configuration deserializes the section.
+ * <p>
+ * Holders that were not accessed yet are equal if their serialized content is equal, so loading
+ * an unchanged file does not report them as changed. Once accessed, holders are equal only to themselves.
+ *
+ * @param <C> section type
+ */
+public final class LazySection<C extends Configuration> implements Supplier<C> {
+
+    private @Nullable Supplier<? extends C> loader;
+    private volatile @Nullable C value;
+    private volatile @Nullable Map<String, Object> content;
+    private final int hash;
+
+    private LazySection(@Nullable Supplier<? extends C> loader, @Nullable C value, @Nullable Map<String, Object> content) {
+        this.loader = loader;
+        this.value = value;
+        this.content = content;
+        this.hash = content != null ? content.keySet().hashCode() : System.identityHashCode(this);
+    }
+
+    /**
+     * @param section the section
+     * @return holder of an already available section
+     * @param <C> section type
+     */
+    public static <C extends Configuration> LazySection<C> of(C section) {
+        return new LazySection<>(null, Objects.requireNonNull(section, "section"), null);
+    }
+
+    /**
+     * @param loader function creating the section, called at most once
+     * @return holder of a section created on the first access
+     * @param <C> section type
+     */
+    public static <C extends Configuration> LazySection<C> deferred(Supplier<? extends C> loader) {
+        return new LazySection<>(Objects.requireNonNull(loader, "loader"), null, null);
+    }
+
+    /**
+     * @param loader function deserializing the section, called at most once
+     * @param content serialized content of the section, compared by {@link #equals(Object)} until it is loaded
+     * @return holder of a section deserialized on the first access
+     * @param <C> section type
+     */
+    @ApiStatus.Internal
+    public static <C extends Configuration> LazySection<C> deferred(Supplier<? extends C> loader, Map<String, Object> content) {
+        return new LazySection<>(Objects.requireNonNull(loader, "loader"), null, Objects.requireNonNull(content, "content"));
+    }
+
+    /**
+     * @return the section, deserialized by this call if it was not accessed before,
+     * {@code null} if it could not be deserialized
+     */
+    @Override
+    public @Nullable C get() {
+        C value = this.value;
+        if (value != null) return value;
+        synchronized (this) {
+            Supplier<? extends C> loader = this.loader;
+            if (loader == null) return this.value;
+            value = loader.get();
+            this.value = value;
+            this.loader = null; // releases the serialized content
+            this.content = null;
+            return value;
+        }
+    }
+
+    /**
+     * @return the section if it was already deserialized, {@code null} otherwise
+     */
+    public @Nullable C getIfLoaded() {
+        return value;
+    }
+
+    public boolean isLoaded() {
+        if (value != null) return true;
+        synchronized (this) {
+            return loader == null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LazySection<?> other)) return false;
+        Map<String, Object> content = this.content, otherContent = other.content;
+        return content != null && otherContent != null && contentEquals(content, otherContent);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Compares serialized values, which are primitives, arrays and maps of them.
+     */
+    private static boolean contentEquals(@Nullable Object a, @Nullable Object b) {
+        if (a == b) return true;
+        if (a instanceof Map<?, ?> map && b instanceof Map<?, ?> otherMap) {
+            if (map.size() != otherMap.size()) return false;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object otherValue = otherMap.get(entry.getKey());
+                if (otherValue == null && !otherMap.containsKey(entry.getKey())) return false;
+                if (!contentEquals(entry.getValue(), otherValue)) return false;
+            }
+            return true;
+        }
+        if (a instanceof Object[] array && b instanceof Object[] otherArray) {
+            if (array.length != otherArray.length) return false;
+            for (int i = 0; i < array.length; i++)
+                if (!contentEquals(array[i], otherArray[i])) return false;
+            return true;
+        }
+        return Objects.deepEquals(a, b);
+    }
+
+    @Override
+    public String toString() {
+        C value = this.value;
+        return "LazySection[" + (value != null ? value : isLoaded() ? "null" : "not loaded") + "]";
+    }
+
+}
@@ -0,0 +1,183 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holder of the current version of a configuration that can be replaced at any time.
+ * <p>
+ * Each published configuration is wrapped in a {@link Snapshot} with an increasing version.
+ * Reading the current configuration is a single volatile read, updates are published atomically
+ * and never block readers. Published configurations are shared between threads and must not
+ * be modified, updates have to publish a new instance instead.
+ *
+ * @param <C> configuration type
+ */
+public final class LiveConfig<C extends Configuration> {
+
+    private final AtomicReference<Snapshot<C>> current;
+    private final List<Listener<? super C>> listeners = new CopyOnWriteArrayList<>();
+    private final @Nullable Source<C> source;
+
+    public LiveConfig(C configuration) {
+        this(configuration, null);
+    }
+
+    LiveConfig(C configuration, @Nullable Source<C> source) {
+        this.current = new AtomicReference<>(new Snapshot<>(Objects.requireNonNull(configuration, "configuration"), 0));
+        this.source = source;
+    }
+
+    /**
+     * @return the current configuration
+     */
+    public C get() {
+        return current.get().configuration();
+    }
+
+    /**
+     * @return the current snapshot
+     */
+    public Snapshot<C> snapshot() {
+        return current.get();
+    }
+
+    public long version() {
+        return current.get().version();
+    }
+
+    /**
+     * Publishes a new configuration, regardless of the current one.
+     *
+     * @param configuration configuration to publish
+     * @return the published snapshot
+     */
+    public Snapshot<C> set(C configuration) {
+        Objects.requireNonNull(configuration, "configuration");
+        Snapshot<C> previous, next;
+        do {
+            previous = current.get();
+            next = previous.next(configuration);
+        } while (!current.compareAndSet(previous, next));
+        notifyListeners(previous, next);
+        return next;
+    }
+
+    /**
+     * Publishes a new configuration only if the current snapshot is still the expected one.
+     *
+     * @param expected snapshot the update is based on
+     * @param configuration configuration to publish
+     * @return whether the configuration was published
+     */
+    public boolean compareAndSet(Snapshot<C> expected, C configuration) {
+        Snapshot<C> next = expected.next(Objects.requireNonNull(configuration, "configuration"));
+        if (!current.compareAndSet(expected, next)) return false;
+        notifyListeners(expected, next);
+        return true;
+    }
+
+    /**
+     * Publishes the result of the function applied to the current configuration.
+     * The function may be called multiple times if other updates happen concurrently,
+     * it must return a new instance rather than modify the given one.
+     *
+     * @param function function creating the new configuration
+     * @return the published snapshot
+     */
+    public Snapshot<C> update(UnaryOperator<C> function) {
+        while (true) {
+            Snapshot<C> previous = current.get();
+            C configuration = Objects.requireNonNull(function.apply(previous.configuration()), "configuration");
+            Snapshot<C> next = previous.next(configuration);
+            if (current.compareAndSet(previous, next)) {
+                notifyListeners(previous, next);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Loads the configuration again from the file it was loaded from and publishes it.
+     *
+     * @return the published snapshot
+     * @throws IllegalStateException if this holder was not created by {@link ConfigSerializer#loadLive(Path, Class)}
+     */
+    public Snapshot<C> reload() {
+        if (source == null) throw new IllegalStateException("Configuration was not loaded from a file");
+        return set(source.serializer().load(source.path(), source.type()));
+    }
+
+    /**
+     * Publishes the configuration each time its file changes. Changes are detected against
+     * the content the configuration was loaded from, so changes made before this call are published too.
+     *
+     * @param watcher watcher to register the file with
+     * @return the registration of the file
+     * @throws IllegalStateException if this holder was not created by {@link ConfigSerializer#loadLive(Path, Class)}
+     */
+    public ConfigWatcher.Registration watch(ConfigWatcher watcher) {
+        if (source == null) throw new IllegalStateException("Configuration was not loaded from a file");
+        return watcher.watch(source.path(), source.type(), this::set, watcher::reportError, source.loaded());
+    }
+
+    /**
+     * Adds a listener called after each published change, on the thread that published it.
+     * A failing listener does not prevent the others from being called, the first exception
+     * is rethrown to the publisher once all listeners were called, with the others suppressed.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(Listener<? super C> listener) {
+        listeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+
+    public void removeListener(Listener<? super C> listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Snapshot<C> previous, Snapshot<C> current) {
+        RuntimeException exception = null;
+        for (Listener<? super C> listener : listeners) {
+            try {
+                listener.changed(previous, current);
+            } catch (RuntimeException e) {
+                if (exception == null) exception = e;
+                else exception.addSuppressed(e);
+            }
+        }
+        if (exception != null) throw exception;
+    }
+
+    /**
+     * A published configuration.
+     *
+     * @param configuration the configuration
+     * @param version number of changes published before this one
+     * @param <C> configuration type
+     */
+    public record Snapshot<C extends Configuration>(C configuration, long version) {
+
+        private Snapshot<C> next(C configuration) {
+            return new Snapshot<>(configuration, version + 1);
+        }
+
+    }
+
+    @FunctionalInterface
+    public interface Listener<C extends Configuration> {
+
+        void changed(Snapshot<? extends C> previous, Snapshot<? extends C> current);
+
+    }
+
+    record Source<C extends Configuration>(ConfigSerializer<?> serializer, Path path, Class<C> type, ConfigWatcher.FileState loaded) {
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.machinemc.cogwheel.config;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Finds the field names passed to {@link TrackedConfiguration#markDirty(String)} as constants
+ * in the class file of a tracked configuration, so that names of fields that do not exist
+ * are reported when the class is first tracked instead of when the setter is first called.
+ * <p>
+ * Only calls on instances of the class itself are found, names computed at runtime are not.
+ */
+final class MarkDirtyScanner {
+
+    private static final String MARK_DIRTY = "markDirty";
+    private static final String MARK_DIRTY_DESCRIPTOR = "(Ljava/lang/String;)V";
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int LOOKUPSWITCH = 0xab;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int WIDE = 0xc4;
+    private static final int IINC = 0x84;
+
+    /**
+     * Lengths of the instructions by their opcodes, {@code 0} for the ones of variable length.
+     */
+    private static final byte[] INSTRUCTION_LENGTHS = new byte[256];
+
+    static {
+        Arrays.fill(INSTRUCTION_LENGTHS, (byte) 1);
+        for (int opcode : new int[] {0x10, 0x12, 0x15, 0x16, 0x17, 0x18, 0x19, 0x36, 0x37, 0x38, 0x39, 0x3a, 0xa9, 0xbc})
+            INSTRUCTION_LENGTHS[opcode] = 2;
+        for (int opcode = 0x99; opcode <= 0xa8; opcode++) INSTRUCTION_LENGTHS[opcode] = 3;
+        for (int opcode = 0xb2; opcode <= 0xb8; opcode++) INSTRUCTION_LENGTHS[opcode] = 3;
+        for (int opcode : new int[] {0x11, 0x13, 0x14, 0x84, 0xbb, 0xbd, 0xc0, 0xc1, 0xc6, 0xc7})
+            INSTRUCTION_LENGTHS[opcode] = 3;
+        INSTRUCTION_LENGTHS[0xc5] = 4;
+        for (int opcode : new int[] {0xb9, 0xba, 0xc8, 0xc9}) INSTRUCTION_LENGTHS[opcode] = 5;
+        INSTRUCTION_LENGTHS[TABLESWITCH] = 0;
+        INSTRUCTION_LENGTHS[LOOKUPSWITCH] = 0;
+        INSTRUCTION_LENGTHS[WIDE] = 0;
+    }
+
+    private MarkDirtyScanner() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @param type class to scan
+     * @return the constant field names the class passes to {@code markDirty} of its own instances,
+     * empty if its class file can not be found
+     */
+    static Set<String> markedFields(Class<?> type) {
+        String name = type.getName();
+        try (InputStream in = type.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            if (in == null) return Set.of();
+            return scan(new DataInputStream(in), name.replace('.', '/'));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Set<String> scan(DataInputStream in, String className) throws IOException {
+        in.readInt(); // magic
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        int count = in.readUnsignedShort();
+        int[] tags = new int[count];
+        int[] first = new int[count];
+        int[] second = new int[count];
+        String[] utf8 = new String[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag) {
+                case CONSTANT_UTF8 -> utf8[i] = in.readUTF();
+                case CONSTANT_CLASS, CONSTANT_STRING, 16, 19, 20 -> first[i] = in.readUnsignedShort();
+                case 3, 4 -> in.readInt();
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    in.readLong();
+                    i++;
+                }
+                case 9, CONSTANT_METHOD_REF, 11, CONSTANT_NAME_AND_TYPE, 17, 18 -> {
+                    first[i] = in.readUnsignedShort();
+                    second[i] = in.readUnsignedShort();
+                }
+                case 15 -> {
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        boolean[] markDirty = new boolean[count];
+        for (int i = 1; i < count; i++) {
+            if (tags[i] != CONSTANT_METHOD_REF) continue;
+            int nameAndType = second[i];
+            markDirty[i] = className.equals(utf8[first[first[i]]])
+                    && MARK_DIRTY.equals(utf8[first[nameAndType]])
+                    && MARK_DIRTY_DESCRIPTOR.equals(utf8[second[nameAndType]]);
+        }
+
+        in.readUnsignedShort(); // access flags
+        in.readUnsignedShort(); // this class
+        in.readUnsignedShort(); // super class
+        in.skipNBytes(in.readUnsignedShort() * 2L); // interfaces
+        skipMembers(in);
+        Set<String> fields = new LinkedHashSet<>();
+        int methods = in.readUnsignedShort();
+        for (int i = 0; i < methods; i++) {
+            in.skipNBytes(6); // access flags, name and descriptor
+            int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                String attribute = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if (!"Code".equals(attribute)) {
+                    in.skipNBytes(length & 0xFFFFFFFFL);
+                    continue;
+                }
+                in.skipNBytes(4); // max stack and max locals
+                byte[] code = new byte[in.readInt()];
+                in.readFully(code);
+                in.skipNBytes(length - 8L - code.length);
+                scanCode(code, tags, first, utf8, markDirty, fields);
+            }
+        }
+        return fields;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int members = in.readUnsignedShort();
+        for (int i = 0; i < members; i++) {
+            in.skipNBytes(6); // access flags, name and descriptor
+            int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                in.readUnsignedShort();
+                in.skipNBytes(in.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    /**
+     * Collects the strings loaded right before the calls of {@code markDirty}.
+     */
+    private static void scanCode(byte[] code, int[] tags, int[] first, String[] utf8, boolean[] markDirty, Set<String> fields) {
+        String constant = null;
+        int pc = 0;
+        while (pc < code.length) {
+            int opcode = code[pc] & 0xFF;
+            String loaded = null;
+            int length = INSTRUCTION_LENGTHS[opcode];
+            switch (opcode) {
+                case LDC, LDC_W -> {
+                    int index = opcode == LDC ? code[pc + 1] & 0xFF : u2(code, pc + 1);
+                    if (tags[index] == CONSTANT_STRING) loaded = utf8[first[index]];
+                }
+                case INVOKEVIRTUAL -> {
+                    if (constant != null && markDirty[u2(code, pc + 1)]) fields.add(constant);
+                }
+                case TABLESWITCH -> {
+                    int base = (pc + 4) & ~3;
+                    int low = s4(code, base + 4);
+                    int high = s4(code, base + 8);
+                    length = base - pc + 12 + (high - low + 1) * 4;
+                }
+                case LOOKUPSWITCH -> {
+                    int base = (pc + 4) & ~3;
+                    length = base - pc + 8 + s4(code, base + 4) * 8;
+                }
+                case WIDE -> length = (code[pc + 1] & 0xFF) == IINC ? 6 : 4;
+                default -> {
+                }
+            }
+            constant = loaded;
+            pc += length;
+        }
+    }
+
+    private static int u2(byte[] code, int index) {
+        return (code[index] & 0xFF) << 8 | code[index + 1] & 0xFF;
+    }
+
+    private static int s4(byte[] code, int index) {
+        return code[index] << 24 | (code[index + 1] & 0xFF) << 16 | (code[index + 2] & 0xFF) << 8 | code[index + 3] & 0xFF;
+    }
+
+}
@@ -0,0 +1,295 @@
+package org.machinemc.cogwheel.config;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.machinemc.cogwheel.annotations.Ignore;
+import org.machinemc.cogwheel.util.JavaUtils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Configuration that keeps track of its changes, so saving it is free while it does not change.
+ * <p>
+ * Changes have to be reported with {@link #markDirty(String)}, typically from setters:
+ * <pre>{@code
+ * public class ServerConfig extends TrackedConfiguration {
+ *
+ *     private int viewDistance = 10;
+ *
+ *     public void setViewDistance(int viewDistance) {
+ *         this.viewDistance = viewDistance;
+ *         markDirty("viewDistance");
+ *     }
+ *
+ * }
+ * }</pre>
+ * Serializers remember the serialized value of each field and serialize again only the fields
+ * marked as changed since, {@link ConfigSerializer#saveIfChanged(java.nio.file.Path, Configuration)} does
+ * nothing at all if no field changed since the configuration was last saved to the same file.
+ * Serializing the configuration for any other purpose does not affect what the next save writes.
+ * Fields holding tracked sections are serialized again whenever the section changed.
+ * <p>
+ * Collections, maps and arrays modified in place are noticed by their hash codes, so changes
+ * of elements without their own {@link Object#hashCode()} are not. Other values modified without
+ * being reported are not noticed at all. Field names passed to {@code markDirty} as constants
+ * are checked when the class is first tracked, a name of a field that does not exist fails
+ * with an {@link IllegalArgumentException} right away.
+ */
+public abstract class TrackedConfiguration implements Configuration {
+
+    private static final ClassValue<Slots> SLOTS = new ClassValue<>() {
+        @Override
+        protected Slots computeValue(Class<?> type) {
+            return Slots.of(type);
+        }
+    };
+
+    private static final VarHandle TRACKER;
+
+    static {
+        try {
+            TRACKER = MethodHandles.lookup().findVarHandle(TrackedConfiguration.class, "tracker", Tracker.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Ignore
+    private transient volatile @Nullable Tracker tracker;
+
+    /**
+     * Marks a field as changed.
+     *
+     * @param field name of the field
+     * @throws IllegalArgumentException if there is no such field
+     */
+    public final void markDirty(String field) {
+        Tracker tracker = tracker();
+        int slot = tracker.slot(field);
+        if (slot == -1) throw new IllegalArgumentException("No field '" + field + "' in " + getClass().getName());
+        tracker.markDirty(slot);
+    }
+
+    /**
+     * Marks all fields as changed.
+     */
+    public final void markDirty() {
+        tracker().markAllDirty();
+    }
+
+    /**
+     * @return whether a field of this configuration or of any of its tracked sections changed
+     * since it was last serialized
+     */
+    public final boolean isDirty() {
+        Tracker tracker = tracker();
+        detectContainerChanges(tracker);
+        if (tracker.isDirty()) return true;
+        for (Field field : tracker.slots.fields) {
+            if (section(field) instanceof TrackedConfiguration section && section.isDirty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return stamp of the last change of this configuration or of any of its tracked sections,
+     * comparable with {@link Tracker#clock()}
+     */
+    @ApiStatus.Internal
+    public final long lastModified() {
+        Tracker tracker = tracker();
+        detectContainerChanges(tracker);
+        long lastModified = tracker.modified;
+        for (Field field : tracker.slots.fields) {
+            if (section(field) instanceof TrackedConfiguration section)
+                lastModified = Math.max(lastModified, section.lastModified());
+        }
+        return lastModified;
+    }
+
+    private void detectContainerChanges(Tracker tracker) {
+        Field[] fields = tracker.slots.fields;
+        for (int slot = 0; slot < fields.length; slot++) {
+            if (tracker.slots.containers[slot] && tracker.contentChanged(slot, JavaUtils.getValue(fields[slot], this)))
+                tracker.markDirty(slot);
+        }
+    }
+
+    private @Nullable Object section(Field field) {
+        Object value = JavaUtils.getValue(field, this);
+        return value instanceof LazySection<?> lazySection ? lazySection.getIfLoaded() : value;
+    }
+
+    @ApiStatus.Internal
+    public final Tracker tracker() {
+        Tracker tracker = this.tracker;
+        if (tracker != null) return tracker;
+        tracker = new Tracker(SLOTS.get(getClass()));
+        Tracker witness = (Tracker) TRACKER.compareAndExchange(this, null, tracker);
+        return witness != null ? witness : tracker;
+    }
+
+    /**
+     * Changes of a tracked configuration and the serialized values of its fields,
+     * maintained by the serializers.
+     */
+    @ApiStatus.Internal
+    public static final class Tracker {
+
+        /**
+         * Returned by {@link #cached(Object, int)} if the value of the field has to be serialized again.
+         */
+        public static final Object NOT_CACHED = new Object();
+
+        private static final AtomicLong CLOCK = new AtomicLong();
+
+        private final Slots slots;
+        private final AtomicLongArray dirty;
+        private final Object[] cache;
+        private final int[] hashes;
+        private @Nullable Object owner;
+        private volatile long modified;
+        private volatile @Nullable Object synced;
+
+        private Tracker(Slots slots) {
+            this.slots = slots;
+            this.dirty = new AtomicLongArray((slots.fields.length + 63) >>> 6);
+            this.cache = new Object[slots.fields.length];
+            this.hashes = new int[slots.fields.length];
+            markAllDirty();
+        }
+
+        /**
+         * @param field name of the field
+         * @return slot of the field, {@code -1} if there is no such field
+         */
+        public int slot(String field) {
+            return slots.indices.getOrDefault(field, -1);
+        }
+
+        public boolean isDirty() {
+            for (int i = 0; i < dirty.length(); i++)
+                if (dirty.get(i) != 0) return true;
+            return false;
+        }
+
+        /**
+         * @return the current stamp, every change is stamped with a greater one
+         */
+        public static long clock() {
+            return CLOCK.get();
+        }
+
+        private void markDirty(int slot) {
+            long bit = 1L << slot;
+            dirty.getAndAccumulate(slot >>> 6, bit, (word, mask) -> word | mask);
+            modified = CLOCK.incrementAndGet();
+        }
+
+        private void markAllDirty() {
+            int slots = cache.length;
+            for (int i = 0; i < dirty.length(); i++)
+                dirty.set(i, slots - (i << 6) >= 64 ? -1L : (1L << (slots - (i << 6))) - 1);
+            modified = CLOCK.incrementAndGet();
+        }
+
+        /**
+         * Returns the serialized value of a field cached by the same owner, if the field did not change since.
+         * Otherwise the field is marked as clean, it is expected to be serialized again and passed
+         * to {@link #cache(int, Object, Object)}.
+         *
+         * @param owner identifies the format of the cached values, compared by {@link Object#equals(Object)}
+         * @param slot slot of the field
+         * @param value current value of the field
+         * @return the cached value, {@link #NOT_CACHED} if there is none
+         */
+        public synchronized @Nullable Object cached(Object owner, int slot, @Nullable Object value) {
+            if (!owner.equals(this.owner)) {
+                this.owner = owner;
+                Arrays.fill(cache, NOT_CACHED);
+            }
+            long bit = 1L << slot;
+            long word = dirty.getAndAccumulate(slot >>> 6, ~bit, (current, mask) -> current & mask);
+            if ((word & bit) != 0 || contentChanged(slot, value)) cache[slot] = NOT_CACHED;
+            return cache[slot];
+        }
+
+        /**
+         * @param slot slot of the field
+         * @param value value of the field that was serialized
+         * @param serialized the serialized value
+         */
+        public synchronized void cache(int slot, @Nullable Object value, @Nullable Object serialized) {
+            cache[slot] = serialized;
+            if (slots.containers[slot]) hashes[slot] = contentHash(value);
+        }
+
+        /**
+         * @return whether the content of a collection, map or array held by the field changed
+         * since its serialized value was cached
+         */
+        private synchronized boolean contentChanged(int slot, @Nullable Object value) {
+            return slots.containers[slot] && owner != null && cache[slot] != NOT_CACHED
+                    && hashes[slot] != contentHash(value);
+        }
+
+        private static int contentHash(@Nullable Object value) {
+            return Arrays.deepHashCode(new Object[] {value});
+        }
+
+        /**
+         * @return marker of the last save of the configuration, set by the serializer that saved it
+         */
+        public @Nullable Object synced() {
+            return synced;
+        }
+
+        public void synced(@Nullable Object marker) {
+            synced = marker;
+        }
+
+    }
+
+    /**
+     * @param fields tracked fields by their slots
+     * @param indices slots by the names of the fields
+     * @param containers whether the fields hold collections, maps or arrays
+     */
+    private record Slots(Field[] fields, Map<String, Integer> indices, boolean[] containers) {
+
+        static Slots of(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            Map<String, Integer> indices = new HashMap<>();
+            for (Class<?> cls = type; cls != TrackedConfiguration.class; cls = cls.getSuperclass()) {
+                for (Field field : cls.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || indices.containsKey(field.getName())) continue;
+                    indices.put(field.getName(), fields.size());
+                    fields.add(field);
+                }
+            }
+            for (Class<?> cls = type; cls != TrackedConfiguration.class; cls = cls.getSuperclass()) {
+                for (String field : MarkDirtyScanner.markedFields(cls)) {
+                    if (!indices.containsKey(field))
+                        throw new IllegalArgumentException(cls.getName() + " marks field '" + field
+                                + "' as changed, but there is no such field in " + type.getName());
+                }
+            }
+            boolean[] containers = new boolean[fields.size()];
+            for (int i = 0; i < containers.length; i++) {
+                Class<?> fieldType = fields.get(i).getType();
+                containers[i] = fieldType.isArray()
+                        || Collection.class.isAssignableFrom(fieldType)
+                        || Map.class.isAssignableFrom(fieldType);
+            }
+            return new Slots(fields.toArray(Field[]::new), Map.copyOf(indices), containers);
+        }
+
+    }
+
+}
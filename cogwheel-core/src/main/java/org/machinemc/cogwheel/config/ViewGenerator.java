@@ -0,0 +1,283 @@
+package org.machinemc.cogwheel.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Generates the classes implementing view interfaces, see {@link ConfigView}.
+ * <p>
+ * Each abstract method of the interface is implemented by a call to {@link ConfigView#value(int)}
+ * with the slot of the method, followed by a cast or unboxing of the result. The methods
+ * have no branches, so the class file needs no stack map frames.
+ */
+final class ViewGenerator {
+
+    private static final int CLASS_VERSION = 61;
+
+    private static final String VIEW = "org/machinemc/cogwheel/config/ConfigView";
+    private static final String CONSTRUCTOR_DESCRIPTOR =
+            "(L" + VIEW + "$Binding;Lorg/machinemc/cogwheel/config/ConfigAdapter;)V";
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private ViewGenerator() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * The implementation is defined in the class loader of the interface and extends {@link ConfigView},
+     * which must resolve to the same class from that loader.
+     *
+     * @param viewInterface interface to implement
+     * @return the implementation
+     * @throws IllegalArgumentException if the interface can not be implemented
+     */
+    static ConfigView.ViewType generate(Class<?> viewInterface) {
+        if (!viewInterface.isInterface() || viewInterface.isAnnotation() || viewInterface.isSealed())
+            throw new IllegalArgumentException(viewInterface.getName() + " is not an interface that can be implemented");
+        if (!isVisible(viewInterface.getClassLoader()))
+            throw new IllegalArgumentException("Cannot implement " + viewInterface.getName()
+                    + ", its class loader does not see " + ConfigView.class.getName() + " of this library");
+        List<Method> methods = viewMethods(viewInterface);
+        // the class is defined next to the interface, so that it can be implemented even if it is not public
+        ViewGenerator.class.getModule().addReads(viewInterface.getModule());
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(viewInterface, MethodHandles.lookup());
+            String className = viewInterface.getName().replace('.', '/') + "$$View";
+            byte[] bytes = emit(className, viewInterface, methods);
+            Class<?> implementation;
+            if (lookup.hasFullPrivilegeAccess()) {
+                lookup = lookup.defineHiddenClass(bytes, true);
+                implementation = lookup.lookupClass();
+            } else {
+                implementation = lookup.defineClass(bytes);
+            }
+            MethodHandle constructor = lookup.findConstructor(
+                    implementation,
+                    MethodType.methodType(void.class, ConfigView.Binding.class, ConfigAdapter.class)
+            ).asType(MethodType.methodType(ConfigView.class, ConfigView.Binding.class, ConfigAdapter.class));
+            return new ConfigView.ViewType(viewInterface, List.copyOf(methods), constructor);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalArgumentException("Cannot implement " + viewInterface.getName(), e);
+        }
+    }
+
+    private static boolean isVisible(ClassLoader loader) {
+        try {
+            return Class.forName(ConfigView.class.getName(), false, loader) == ConfigView.class;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return abstract methods of the interface, sorted by their names
+     */
+    private static List<Method> viewMethods(Class<?> viewInterface) {
+        Map<String, Method> methods = new TreeMap<>();
+        for (Method method : viewInterface.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) continue;
+            if (method.getParameterCount() != 0 || method.getReturnType() == void.class)
+                throw new IllegalArgumentException("Methods of views must take no parameters and return a value: " + method);
+            // the same method inherited from multiple interfaces is implemented once per return type
+            methods.putIfAbsent(method.getName() + descriptor(method.getReturnType()), method);
+        }
+        if (methods.size() > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Too many methods in " + viewInterface.getName());
+        return new ArrayList<>(methods.values());
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static byte[] emit(String className, Class<?> viewInterface, List<Method> methods) {
+        try {
+            ConstantPool pool = new ConstantPool();
+            int thisClass = pool.classRef(className);
+            int superClass = pool.classRef(VIEW);
+            int interfaceClass = pool.classRef(internalName(viewInterface));
+            int codeName = pool.utf8("Code");
+            int superConstructor = pool.methodRef(VIEW, "<init>", CONSTRUCTOR_DESCRIPTOR);
+            int value = pool.methodRef(VIEW, "value", "(I)Ljava/lang/Object;");
+
+            ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(methodBytes);
+
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(pool.utf8("<init>"));
+            out.writeShort(pool.utf8(CONSTRUCTOR_DESCRIPTOR));
+            Code constructor = new Code();
+            constructor.op(0x2a).op(0x2b).op(0x2c); // aload_0, aload_1, aload_2
+            constructor.op(0xb7).u2(superConstructor); // invokespecial
+            constructor.op(0xb1); // return
+            constructor.write(out, codeName, 3, 3);
+
+            for (int slot = 0; slot < methods.size(); slot++) {
+                Method method = methods.get(slot);
+                Class<?> returnType = method.getReturnType();
+                out.writeShort(ACC_PUBLIC | ACC_FINAL);
+                out.writeShort(pool.utf8(method.getName()));
+                out.writeShort(pool.utf8("()" + descriptor(returnType)));
+                Code code = new Code();
+                code.op(0x2a); // aload_0
+                if (slot <= 5) code.op(0x03 + slot); // iconst_<slot>
+                else if (slot <= Byte.MAX_VALUE) code.op(0x10).u1(slot); // bipush
+                else code.op(0x11).u2(slot); // sipush
+                code.op(0xb6).u2(value); // invokevirtual
+                if (returnType.isPrimitive()) {
+                    String wrapper = internalName(wrap(returnType));
+                    code.op(0xc0).u2(pool.classRef(wrapper)); // checkcast
+                    code.op(0xb6).u2(pool.methodRef(wrapper, returnType.getName() + "Value", "()" + descriptor(returnType)));
+                    code.op(returnOpcode(returnType));
+                } else {
+                    if (returnType != Object.class) code.op(0xc0).u2(pool.classRef(internalName(returnType)));
+                    code.op(0xb0); // areturn
+                }
+                code.write(out, codeName, 2, 1);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + methodBytes.size());
+            DataOutputStream classFile = new DataOutputStream(bytes);
+            classFile.writeInt(0xCAFEBABE);
+            classFile.writeShort(0);
+            classFile.writeShort(CLASS_VERSION);
+            pool.write(classFile);
+            classFile.writeShort(ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+            classFile.writeShort(thisClass);
+            classFile.writeShort(superClass);
+            classFile.writeShort(1);
+            classFile.writeShort(interfaceClass);
+            classFile.writeShort(0); // fields
+            classFile.writeShort(1 + methods.size());
+            methodBytes.writeTo(classFile);
+            classFile.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> primitive) {
+        return MethodType.methodType(primitive).wrap().returnType();
+    }
+
+    private static int returnOpcode(Class<?> primitive) {
+        if (primitive == long.class) return 0xad; // lreturn
+        if (primitive == float.class) return 0xae; // freturn
+        if (primitive == double.class) return 0xaf; // dreturn
+        return 0xac; // ireturn
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.isArray() ? descriptor(type) : type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> type) {
+        return type.descriptorString();
+    }
+
+    private static final class ConstantPool {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) throws IOException {
+            Integer index = entries.get("U" + value);
+            if (index != null) return index;
+            out.writeByte(1);
+            out.writeUTF(value);
+            return add("U" + value);
+        }
+
+        int classRef(String internalName) throws IOException {
+            Integer index = entries.get("C" + internalName);
+            if (index != null) return index;
+            int name = utf8(internalName);
+            out.writeByte(7);
+            out.writeShort(name);
+            return add("C" + internalName);
+        }
+
+        int methodRef(String owner, String name, String descriptor) throws IOException {
+            String key = "M" + owner + '.' + name + descriptor;
+            Integer index = entries.get(key);
+            if (index != null) return index;
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            int nameAndType = add("N" + name + descriptor);
+            out.writeByte(10);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+            return add(key);
+        }
+
+        private int add(String key) {
+            entries.put(key, count);
+            return count++;
+        }
+
+        void write(DataOutputStream classFile) throws IOException {
+            classFile.writeShort(count);
+            bytes.writeTo(classFile);
+        }
+
+    }
+
+    private static final class Code {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Code op(int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u1(int value) {
+            bytes.write(value);
+            return this;
+        }
+
+        Code u2(int value) {
+            bytes.write(value >>> 8);
+            bytes.write(value);
+            return this;
+        }
+
+        void write(DataOutputStream out, int codeName, int maxStack, int maxLocals) throws IOException {
+            out.writeShort(1); // attributes
+            out.writeShort(codeName);
+            out.writeInt(12 + bytes.size());
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        }
+
+    }
+
+}
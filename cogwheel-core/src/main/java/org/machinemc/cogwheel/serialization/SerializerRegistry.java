@@ -1,6 +1,7 @@
 package org.machinemc.cogwheel.serialization;
 
 import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.config.LazySection;
 import org.machinemc.cogwheel.serialization.Serializers.*;
 import org.machinemc.cogwheel.util.ArrayUtils;
 import org.machinemc.cogwheel.util.NumberUtils;
@@ -101,7 +102,7 @@ public class SerializerRegistry {
                     number -> NumberUtils.parseInteger(number.toString())));
             addSerializer(BigDecimal.class, new NumberSerializer<>(BigDecimal.class,
                     number -> NumberUtils.parseDecimal(number.toString())));
-            addSerializer(Number.class, new NumberSerializer<>(Number.class, number -> number));
+            addSerializer(Number.class, new NumberSerializer<>(Number.class, number -> NumberUtils.parse(number.toString())));
 
             addSerializer(Boolean.class, new BooleanSerializer());
             addSerializer(String.class, new StringSerializer());
@@ -129,6 +130,8 @@ public class SerializerRegistry {
             addSerializer(Queue.class, ArrayUtils.array(Deque.class, LinkedList.class),
                     context -> new CollectionSerializer<>(length -> new LinkedList<>(), context));
 
+            addSerializer(LazySection.class, LazySectionSerializer.factory());
+
             //noinspection unchecked, rawtypes
             addSerializer(Map.class, ArrayUtils.array(SequencedMap.class, HashMap.class, LinkedHashMap.class, TreeMap.class),
                     context -> new MapSerializer(context));
@@ -3,7 +3,9 @@ package org.machinemc.cogwheel.serialization;
 import org.jetbrains.annotations.Nullable;
 import org.machinemc.cogwheel.DataVisitor;
 import org.machinemc.cogwheel.ErrorHandler;
+import org.machinemc.cogwheel.SingletonDataVisitor;
 import org.machinemc.cogwheel.config.*;
+import org.machinemc.cogwheel.keyformatter.KeyFormatter;
 import org.machinemc.cogwheel.util.ArrayUtils;
 import org.machinemc.cogwheel.util.JavaUtils;
 import org.machinemc.cogwheel.util.NumberUtils;
@@ -87,21 +89,24 @@ public class Serializers {
         @Override
         public @Nullable N deserialize(DataVisitor visitor, ErrorContainer errorContainer) {
             Number number = visitor.readNumber().orElse(null);
-            if (type.isInstance(number)) return type.cast(number);
-            return Optional.ofNullable(number)
-                    .map(String::valueOf)
-                    .or(visitor::readString)
-                    .map(string -> {
-                        try {
-                            Number parsed = NumberUtils.parse(string);
-                            if (type.isInstance(parsed)) return type.cast(parsed);
-                            return numberFunction.apply(new NumberUtils.ClampedNumber(parsed));
-                        } catch (NumberFormatException e) {
-                            errorContainer.error(ErrorType.CUSTOM, "Could not parse '" + string + "' as a number");
-                            return null;
-                        }
-                    })
-                    .orElse(null);
+            // compact numbers of the adapters are converted for Number as well, so it keeps getting BigInteger or BigDecimal
+            if (type.isInstance(number) && (type != Number.class || !isPrimitiveWrapper(number))) return type.cast(number);
+            String string = number == null ? visitor.readString().orElse(null) : null;
+            if (number == null && string == null) return null;
+            try {
+                if (isPrimitiveWrapper(number)) return numberFunction.apply(NumberUtils.clamped(number));
+                Number parsed = NumberUtils.parse(string != null ? string : number.toString());
+                if (type.isInstance(parsed)) return type.cast(parsed);
+                return numberFunction.apply(new NumberUtils.ClampedNumber(parsed));
+            } catch (NumberFormatException e) {
+                errorContainer.error(ErrorType.CUSTOM, "Could not parse '" + (string != null ? string : number) + "' as a number");
+                return null;
+            }
+        }
+
+        private static boolean isPrimitiveWrapper(@Nullable Number number) {
+            return number instanceof Integer || number instanceof Long || number instanceof Double
+                    || number instanceof Float || number instanceof Short || number instanceof Byte;
         }
 
     }
@@ -526,6 +531,51 @@ public class Serializers {
 
     }
 
+    public static class LazySectionSerializer<C extends Configuration> implements Serializer<LazySection<C>> {
+
+        private final SerializerContext context;
+
+        public LazySectionSerializer(SerializerContext context) {
+            AnnotatedParameterizedType type = (AnnotatedParameterizedType) context.annotatedType();
+            AnnotatedType argument = validateParameterType(type.getAnnotatedActualTypeArguments()[0]);
+            this.context = context.withType(argument);
+        }
+
+        /**
+         * @return factory of the serializers, typed for the registration of the raw {@link LazySection} class
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public static SerializerFactory<LazySection> factory() {
+            return context -> (Serializer) new LazySectionSerializer<>(context);
+        }
+
+        @Override
+        public void serialize(LazySection<C> section, DataVisitor visitor) {
+            C configuration = section.get();
+            Serializer<C> serializer = context.writeWith();
+            if (configuration == null || serializer == null) {
+                visitor.writeNull();
+                return;
+            }
+            serializer.serialize(configuration, visitor);
+        }
+
+        @Override
+        public @Nullable LazySection<C> deserialize(DataVisitor visitor, ErrorContainer errorContainer) {
+            Class<C> type = JavaUtils.asClass(context.type());
+            Serializer<C> deserializer = context.readWith();
+            return visitor.readConfig()
+                    .map(adapter -> LazySection.deferred(() -> {
+                        ErrorContainer container = new ErrorContainer();
+                        C section = Serializers.deserialize(deserializer, adapter, type, container);
+                        container.handleErrors(context);
+                        return section;
+                    }, adapter.asMapView()))
+                    .orElse(null);
+        }
+
+    }
+
     public static class ConfigurationSerializer<C extends Configuration> implements Serializer<C> {
 
         private static final Function<Class<?>, String> COULD_NOT_SERIALIZE = as ->
@@ -550,10 +600,16 @@ public class Serializers {
         @Override
         public void serialize(C configuration, DataVisitor visitor) {
             ConfigAdapter<?> configAdapter = context.configAdapter().get();
+            TrackedConfiguration.Tracker tracker = configuration instanceof TrackedConfiguration tracked ? tracked.tracker() : null;
+            CacheOwner cacheOwner = tracker != null ? new CacheOwner(
+                    properties.serializerRegistry(),
+                    configAdapter.getClass(),
+                    properties.keyFormatter()
+            ) : null;
             nodeStream(configuration.getClass()).forEach(node -> {
-                Object primitive = node.getValue(configuration);
-                Serializer<Object> writeWith = context.withNode(node).writeWith();
-                Object serialized = writeWith == null ? primitive : Serializer.serialize(writeWith, primitive);
+                Object serialized = tracker != null
+                        ? serializeTracked(node, configuration, tracker, cacheOwner)
+                        : serialize(node, configuration);
                 if (serialized == null && node.isHidden()) return;
                 if (!configAdapter.setPrimitive(node.getFormattedName(), serialized)) {
                     handleError(
@@ -579,39 +635,139 @@ public class Serializers {
             Map<String, Object> config = visitor.readConfig().map(ConfigAdapter::asMapView).orElse(null);
             if (config == null) return null;
             Set<String> unhandledKeys = new LinkedHashSet<>(config.keySet());
-            ErrorHandler errorHandler = properties.errorHandler();
             ClassBuilder<C> builder = classBuilder();
             nodeStream(builder.getType()).forEach(node -> {
-                String key = node.getFormattedName();
-                Object primitive = config.get(key);
-                unhandledKeys.remove(key);
-                if (primitive == null) {
-                    if (node.isOptional()) return;
-                    handleError(node, new ErrorEntry(ErrorType.KEY_NOT_FOUND, "Required key '" + key + "' is missing"));
-                    return;
-                }
+                NodeInput input = input(node, config, unhandledKeys);
+                if (input == null) return;
                 Class<?> type = node.getActualType();
-                Serializer<?> readWith = context.withNode(node).readWith();
-                if (readWith == null && !type.isInstance(primitive)) {
-                    handleError(node, new ErrorEntry(ErrorType.SERIALIZER_NOT_FOUND, COULD_NOT_DESERIALIZE.apply(type)));
-                    return;
-                }
-                Object deserialized = Serializers.deserialize((Serializer) readWith, primitive, type, errorContainer);
+                Object deserialized = Serializers.deserialize((Serializer) input.readWith(), input.primitive(), type, errorContainer);
                 errorContainer.handleErrors(context);
                 if (deserialized == null) return;
                 builder.setComponent(node.getName(), (Class) type, deserialized);
             });
+            handleUnexpectedKeys(unhandledKeys);
+            return builder.build();
+        }
+
+        /**
+         * Looks up the serialized value of a node, missing required keys and values
+         * that can not be deserialized are reported.
+         *
+         * @return the serialized value and its deserializer, {@code null} if the node is skipped
+         */
+        private @Nullable NodeInput input(ConfigNode<?> node, Map<String, Object> config, Set<String> unhandledKeys) {
+            String key = node.getFormattedName();
+            Object primitive = config.get(key);
+            unhandledKeys.remove(key);
+            if (primitive == null) {
+                if (!node.isOptional())
+                    handleError(node, new ErrorEntry(ErrorType.KEY_NOT_FOUND, "Required key '" + key + "' is missing"));
+                return null;
+            }
+            Class<?> type = node.getActualType();
+            Serializer<?> readWith = context.withNode(node).readWith();
+            if (readWith == null && !type.isInstance(primitive)) {
+                handleError(node, new ErrorEntry(ErrorType.SERIALIZER_NOT_FOUND, COULD_NOT_DESERIALIZE.apply(type)));
+                return null;
+            }
+            return new NodeInput(primitive, readWith);
+        }
+
+        private void handleUnexpectedKeys(Set<String> unhandledKeys) {
+            ErrorHandler errorHandler = properties.errorHandler();
             unhandledKeys.forEach(key -> errorHandler.handle(
                     context.withNode(null),
                     new ErrorEntry(ErrorType.UNEXPECTED_KEY, "Unexpected key '" + key + "' was found")
             ));
-            return builder.build();
+        }
+
+        private @Nullable Object serialize(ConfigNode<?> node, C configuration) {
+            Object primitive = node.getValue(configuration);
+            Serializer<Object> writeWith = context.withNode(node).writeWith();
+            return writeWith == null ? primitive : Serializer.serialize(writeWith, primitive);
+        }
+
+        /**
+         * Serializes the node unless its value did not change since it was last serialized
+         * to the same format, tracked sections are serialized again if they changed.
+         */
+        private @Nullable Object serializeTracked(ConfigNode<?> node, C configuration, TrackedConfiguration.Tracker tracker, CacheOwner cacheOwner) {
+            int slot = tracker.slot(node.getName());
+            if (slot == -1) return serialize(node, configuration);
+            Object value = node.getValue(configuration);
+            Object cached = tracker.cached(cacheOwner, slot, value);
+            Object section = value instanceof LazySection<?> lazySection ? lazySection.getIfLoaded() : value;
+            boolean sectionChanged = section instanceof TrackedConfiguration tracked && tracked.isDirty();
+            if (cached != TrackedConfiguration.Tracker.NOT_CACHED && !sectionChanged) return cached;
+            Object serialized = serialize(node, configuration);
+            tracker.cache(slot, value, serialized);
+            return serialized;
+        }
+
+        /**
+         * Deserializes the configuration into an existing instance. Only fields whose values differ
+         * are written, sections held by fields are updated in place as long as they are mutable.
+         * Optional keys that are missing keep their current values.
+         *
+         * @param configuration instance to update
+         * @param visitor visitor holding the serialized configuration
+         * @param errorContainer container of the errors
+         * @param path prefix of the reported paths, empty for the root
+         * @param changes receives the dot separated names of the changed fields
+         * @return whether the visitor held a configuration
+         * @throws IllegalArgumentException if the configuration is a record
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public boolean deserializeInto(C configuration, DataVisitor visitor, ErrorContainer errorContainer, String path, List<String> changes) {
+            if (configuration.getClass().isRecord())
+                throw new IllegalArgumentException("Records can not be updated in place: " + configuration.getClass());
+            Map<String, Object> config = visitor.readConfig().map(ConfigAdapter::asMapView).orElse(null);
+            if (config == null) return false;
+            Set<String> unhandledKeys = new LinkedHashSet<>(config.keySet());
+            nodeStream(configuration.getClass()).forEach(node -> {
+                NodeInput input = input(node, config, unhandledKeys);
+                if (input == null) return;
+                FieldNode field = (FieldNode) node;
+                Class<?> type = node.getActualType();
+                Object primitive = input.primitive();
+                Serializer<?> readWith = input.readWith();
+                Object current = node.getValue(configuration);
+                String name = path + node.getName();
+                Serializer<?> sectionReader = readWith;
+                Object section = current;
+                if (readWith instanceof LazySectionSerializer<?> lazy && current instanceof LazySection<?> lazySection) {
+                    // loaded lazy sections are updated in place as well
+                    sectionReader = lazy.context.readWith();
+                    section = lazySection.getIfLoaded();
+                }
+                if (sectionReader instanceof ConfigurationSerializer sectionSerializer && section != null && !section.getClass().isRecord()) {
+                    SingletonDataVisitor sectionVisitor = new SingletonDataVisitor(primitive).withFlags(DataVisitor.READ_ACCESS);
+                    boolean updated = sectionSerializer.deserializeInto((Configuration) section, sectionVisitor, errorContainer, name + ".", changes);
+                    errorContainer.handleErrors(context);
+                    if (updated) return;
+                }
+                Object deserialized = Serializers.deserialize((Serializer) readWith, primitive, type, errorContainer);
+                errorContainer.handleErrors(context);
+                // compared node by node, so sections and elements without equals are not reported as changed
+                if (deserialized == null || ConfigDiff.isEqual(this::getNodes, current, deserialized)) return;
+                if (!field.setValue(configuration, deserialized)) return;
+                if (configuration instanceof TrackedConfiguration tracked) tracked.markDirty(node.getName());
+                changes.add(name);
+            });
+            handleUnexpectedKeys(unhandledKeys);
+            return true;
         }
 
         private void handleError(ConfigNode<?> node, ErrorEntry error) {
             context.properties().errorHandler().handle(context.withNode(node), error);
         }
 
+        private record NodeInput(Object primitive, @Nullable Serializer<?> readWith) {
+        }
+
+        private record CacheOwner(SerializerRegistry registry, Class<?> adapterType, @Nullable KeyFormatter keyFormatter) {
+        }
+
         private ClassBuilder<C> classBuilder() {
             if (type.isRecord()) {
                 //noinspection unchecked,rawtypes
@@ -621,11 +777,25 @@ public class Serializers {
             }
         }
 
+        /**
+         * @param cls configuration class
+         * @return nodes of the class
+         */
+        public List<ConfigNode<?>> getNodes(Class<?> cls) {
+            return properties.nodes(cls, this::createNodes);
+        }
+
         private Stream<? extends ConfigNode<?>> nodeStream(Class<?> cls) {
-            if (cls.isRecord()) return recordNodeStream(cls.asSubclass(Record.class));
-            return properties.fieldExtractor().extract(cls)
-                    .map(field -> new FieldNode(field, context::withNode))
-                    .filter(properties.nodeFilter());
+            return getNodes(cls).stream();
+        }
+
+        private List<ConfigNode<?>> createNodes(Class<?> cls) {
+            Stream<? extends ConfigNode<?>> nodes = cls.isRecord()
+                    ? recordNodeStream(cls.asSubclass(Record.class))
+                    : properties.fieldExtractor().extract(cls)
+                            .map(field -> new FieldNode(field, context::withNode))
+                            .filter(properties.nodeFilter());
+            return List.copyOf(nodes.toList());
         }
 
         private Stream<RecordComponentNode> recordNodeStream(Class<? extends Record> recordClass) {
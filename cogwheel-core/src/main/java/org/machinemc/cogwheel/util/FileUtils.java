@@ -1,7 +1,29 @@
 package org.machinemc.cogwheel.util;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 public final class FileUtils {
 
@@ -22,4 +44,100 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Replaces the content of the file without ever leaving it partially written.
+     * <p>
+     * The bytes are written to a temporary file next to the target, forced to the storage device
+     * and then moved over the target, atomically if the file system supports it. The directory
+     * is forced as well, so the replacement survives a crash. On file systems with POSIX attributes
+     * the replacement keeps the permissions of the file, and its owner and group where the process
+     * is allowed to set them.
+     *
+     * @param path file to write
+     * @param bytes new content of the file
+     * @throws IOException if writing fails
+     */
+    public static void writeAtomically(Path path, byte[] bytes) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path parent = absolute.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path temp = absolute.resolveSibling("." + absolute.getFileName() + "."
+                + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        PosixFileAttributes attributes = readPosixAttributes(absolute);
+        // created with the permissions of the file, so its content is never readable by more users
+        FileAttribute<?>[] createAttributes = attributes != null
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(attributes.permissions())}
+                : new FileAttribute<?>[0];
+        try {
+            try (FileChannel channel = FileChannel.open(temp, Set.of(WRITE, CREATE_NEW), createAttributes)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) channel.write(buffer);
+                channel.force(true);
+            }
+            if (attributes != null) copyAttributes(attributes, temp);
+            try {
+                Files.move(temp, absolute, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temp, absolute, REPLACE_EXISTING);
+            }
+            if (parent != null) forceDirectory(parent);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return POSIX attributes of the file, {@code null} if it does not exist or the file system has none
+     */
+    private static @Nullable PosixFileAttributes readPosixAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, PosixFileAttributes.class);
+        } catch (NoSuchFileException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the permissions exactly, as the umask applies when the file is created,
+     * and the owner and group if they differ and the process is allowed to change them.
+     */
+    private static void copyAttributes(PosixFileAttributes attributes, Path path) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        view.setPermissions(attributes.permissions());
+        PosixFileAttributes current = view.readAttributes();
+        try {
+            if (!attributes.owner().equals(current.owner())) view.setOwner(attributes.owner());
+        } catch (IOException ignored) {
+            // changing the owner requires privileges
+        }
+        try {
+            if (!attributes.group().equals(current.group())) view.setGroup(attributes.group());
+        } catch (IOException ignored) {
+            // the process is not a member of the group
+        }
+    }
+
+    /**
+     * Forces the entries of the directory to the storage device. Directories can not be opened
+     * on every platform, there the file system is relied on to persist the move.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * @param bytes content to hash
+     * @return SHA-256 hash of the content
+     */
+    public static byte[] hash(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
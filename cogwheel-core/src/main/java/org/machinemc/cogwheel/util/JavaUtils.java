@@ -114,6 +114,16 @@ public final class JavaUtils {
         }
     }
 
+    public static boolean setValue(Field field, @Nullable Object holder, @Nullable Object value) {
+        try {
+            field.setAccessible(true);
+            field.set(holder, value);
+            return true;
+        } catch (IllegalAccessException ignored) {
+            return false;
+        }
+    }
+
     public static Object getValue(RecordComponent recordComponent, Object holder) {
         try {
             Method accessor = recordComponent.getAccessor();
@@ -0,0 +1,48 @@
+package org.machinemc.cogwheel.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe map holding at most a fixed number of entries,
+ * the least recently used entry is evicted once the limit is exceeded.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public final class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+
+    /**
+     * @param maxSize maximum number of entries
+     */
+    public LruCache(int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be positive");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized @Nullable V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized @Nullable V put(K key, V value) {
+        return entries.put(key, value);
+    }
+
+    public synchronized @Nullable V remove(K key) {
+        return entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.machinemc.cogwheel.util;
 
 import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -8,6 +9,12 @@ import java.util.Objects;
 
 public final class NumberUtils {
 
+    // Any integer string with at most this many digits fits into a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    // Any decimal string with at most this many significant digits round-trips through a double
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
     private NumberUtils() {
         throw new UnsupportedOperationException();
     }
@@ -28,6 +35,61 @@ public final class NumberUtils {
         return new BigDecimal(string);
     }
 
+    /**
+     * Parses an integer string into the narrowest exact representation,
+     * that is an {@link Integer} or a {@link Long}, falling back to {@link BigInteger} on overflow.
+     *
+     * @param string string to parse
+     * @return parsed number
+     * @throws NumberFormatException if the string is not a valid number
+     */
+    @Contract("null -> fail")
+    public static Number parseCompactInteger(String string) throws NumberFormatException {
+        int length = string.length();
+        int start = length > 0 && (string.charAt(0) == '-' || string.charAt(0) == '+') ? 1 : 0;
+        if (length - start > 0 && length - start <= MAX_LONG_DIGITS && isDigits(string, start))
+            return narrow(Long.parseLong(string));
+        BigInteger bigInteger = parseInteger(string);
+        return bigInteger.bitLength() < Long.SIZE ? narrow(bigInteger.longValue()) : bigInteger;
+    }
+
+    /**
+     * Parses a decimal string into a {@link Double} if the conversion is lossless,
+     * falling back to {@link BigDecimal} otherwise. The YAML forms {@code .inf}, {@code -.inf}
+     * and {@code .nan} are parsed into the special {@link Double} values.
+     *
+     * @param string string to parse
+     * @return parsed number
+     * @throws NumberFormatException if the string is not a valid number
+     */
+    @Contract("null -> fail")
+    public static Number parseCompactDecimal(String string) throws NumberFormatException {
+        int digits = significantDigits(string);
+        if (digits != -1) {
+            double value = Double.parseDouble(string);
+            if (Double.isFinite(value) && (value != 0 || digits == 0)) return value;
+        } else {
+            Double special = parseSpecialDecimal(string);
+            if (special != null) return special;
+        }
+        return parseDecimal(string);
+    }
+
+    /**
+     * Parses a string into the narrowest exact representation.
+     *
+     * @param string string to parse
+     * @return parsed number
+     * @throws NumberFormatException if the string is not a valid number
+     * @see #parseCompactInteger(String)
+     * @see #parseCompactDecimal(String)
+     */
+    @Contract("null -> fail")
+    public static Number parseCompact(String string) throws NumberFormatException {
+        if (isInteger(string)) return parseCompactInteger(string);
+        return parseCompactDecimal(string);
+    }
+
     @Contract("null, _, _ -> fail")
     public static Number clamp(Number number, long min, long max) {
         return switch (Objects.requireNonNull(number, "number")) {
@@ -39,13 +101,12 @@ public final class NumberUtils {
                 }
             }
             case BigDecimal bigDecimal -> clamp(bigDecimal.toBigInteger(), min, max);
-            default -> {
-                long longValue = number.longValue();
-                double doubleValue = number.doubleValue();
-                if (longValue != doubleValue)
-                    yield doubleValue < 0 ? min : max;
-                yield Math.clamp(longValue, min, max);
-            }
+            case ClampedNumber clampedNumber -> clamp(clampedNumber.number, min, max);
+            case Byte b -> Math.clamp(b, min, max);
+            case Short s -> Math.clamp(s, min, max);
+            case Integer i -> Math.clamp(i, min, max);
+            case Long l -> Math.clamp(l, min, max);
+            default -> (long) Math.clamp(number.doubleValue(), (double) min, (double) max);
         };
     }
 
@@ -59,7 +120,53 @@ public final class NumberUtils {
     }
 
     private static boolean isInteger(String string) {
-        return string.indexOf('.') == -1;
+        return string.indexOf('.') == -1 && string.indexOf('e') == -1 && string.indexOf('E') == -1;
+    }
+
+    private static boolean isDigits(String string, int start) {
+        for (int i = start; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static Number narrow(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) return (int) value;
+        return value;
+    }
+
+    /**
+     * Counts the significant digits of a plain decimal string.
+     *
+     * @param string decimal string
+     * @return number of significant digits, or -1 if the string has more digits than
+     * a double can round-trip, or is not a plain decimal string
+     */
+    private static @Nullable Double parseSpecialDecimal(String string) {
+        int start = !string.isEmpty() && (string.charAt(0) == '-' || string.charAt(0) == '+') ? 1 : 0;
+        return switch (string.substring(start)) {
+            case ".inf", ".Inf", ".INF" -> string.charAt(0) == '-' ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            case ".nan", ".NaN", ".NAN" -> start == 0 ? Double.NaN : null;
+            default -> null;
+        };
+    }
+
+    private static int significantDigits(String string) {
+        int digits = 0;
+        boolean exponent = false;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (exponent || (digits == 0 && c == '0')) continue;
+                if (++digits > MAX_EXACT_DOUBLE_DIGITS) return -1;
+            } else if (c == 'e' || c == 'E') {
+                exponent = true;
+            } else if (c != '.' && c != '-' && c != '+') {
+                return -1;
+            }
+        }
+        return digits;
     }
 
     public static class ClampedNumber extends Number {
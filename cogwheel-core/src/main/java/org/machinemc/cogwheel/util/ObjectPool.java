@@ -0,0 +1,99 @@
+package org.machinemc.cogwheel.util;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe pool of instances that must not be used by multiple threads at once.
+ * <p>
+ * At most {@code size} instances are handed out at the same time, borrowing
+ * from an exhausted pool blocks until an instance is released.
+ *
+ * @param <T> type of the pooled instances
+ */
+public final class ObjectPool<T> {
+
+    private final Supplier<? extends T> factory;
+    private final Semaphore permits;
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a pool sized to the number of available processors.
+     *
+     * @param factory factory used to create new instances
+     */
+    public ObjectPool(Supplier<? extends T> factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param factory factory used to create new instances
+     * @param size maximum number of instances in use at the same time
+     */
+    public ObjectPool(Supplier<? extends T> factory, int size) {
+        if (size < 1) throw new IllegalArgumentException("Pool size must be positive");
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.permits = new Semaphore(size);
+    }
+
+    /**
+     * Borrows an instance from the pool, creating a new one if there is no idle instance.
+     * The instance has to be returned with {@link #release(Object)} or {@link #discard()}.
+     *
+     * @return borrowed instance
+     */
+    public T borrow() {
+        permits.acquireUninterruptibly();
+        T instance = idle.poll();
+        if (instance != null) return instance;
+        try {
+            return Objects.requireNonNull(factory.get(), "Pool factory returned null");
+        } catch (Throwable throwable) {
+            permits.release();
+            throw throwable;
+        }
+    }
+
+    /**
+     * Returns a borrowed instance back to the pool.
+     *
+     * @param instance instance to return
+     */
+    public void release(T instance) {
+        idle.offer(Objects.requireNonNull(instance, "instance"));
+        permits.release();
+    }
+
+    /**
+     * Drops a borrowed instance that may be left in an inconsistent state.
+     */
+    public void discard() {
+        permits.release();
+    }
+
+    /**
+     * Applies the function to a borrowed instance and returns it to the pool afterwards.
+     * If the function fails, the instance is discarded instead.
+     *
+     * @param function function to apply
+     * @return result of the function
+     * @param <R> result type
+     */
+    public <R> R apply(Function<? super T, ? extends R> function) {
+        T instance = borrow();
+        R result;
+        try {
+            result = function.apply(instance);
+        } catch (Throwable throwable) {
+            discard();
+            throw throwable;
+        }
+        release(instance);
+        return result;
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.machinemc.cogwheel.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigConstantsTest {
+
+    public static class Section implements Configuration {
+
+        int size;
+
+        Section(int size) {
+            this.size = size;
+        }
+
+    }
+
+    public static class Root implements Configuration {
+
+        int port;
+        Section section;
+
+        Root(int port, Section section) {
+            this.port = port;
+            this.section = section;
+        }
+
+    }
+
+    @Test
+    void accessorsFollowPublishedConfigurations() throws Throwable {
+        LiveConfig<Root> live = new LiveConfig<>(new Root(1, new Section(2)));
+        ConfigConstants<Root> constants = ConfigConstants.of(live);
+        MethodHandle port = constants.getter("port");
+        assertEquals(1, (int) port.invokeExact());
+        live.set(new Root(3, new Section(4)));
+        assertEquals(3, (int) port.invokeExact());
+    }
+
+    @Test
+    void nullSectionDoesNotKeepOtherAccessorsStale() throws Throwable {
+        LiveConfig<Root> live = new LiveConfig<>(new Root(1, new Section(2)));
+        ConfigConstants<Root> constants = ConfigConstants.of(live);
+        MethodHandle size = constants.getter("section.size");
+        MethodHandle port = constants.getter("port");
+        assertDoesNotThrow(() -> live.set(new Root(5, null)));
+        assertEquals(5, (int) port.invokeExact());
+        assertThrows(NullPointerException.class, () -> {
+            int ignored = (int) size.invokeExact();
+        });
+        live.set(new Root(6, new Section(7)));
+        assertEquals(7, (int) size.invokeExact());
+        assertEquals(6, (int) port.invokeExact());
+    }
+
+    @Test
+    void accessorOfNullSectionCanBeCreated() throws Throwable {
+        LiveConfig<Root> live = new LiveConfig<>(new Root(1, null));
+        ConfigConstants<Root> constants = ConfigConstants.of(live);
+        MethodHandle size = assertDoesNotThrow(() -> constants.getter("section.size"));
+        live.set(new Root(1, new Section(8)));
+        assertEquals(8, (int) size.invokeExact());
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.machinemc.cogwheel.config;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.keyformatter.KeyFormatter;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigPropertiesTest {
+
+    record PrefixKeyFormatter(String prefix) implements KeyFormatter {
+
+        @Override
+        public String format(String key) {
+            return prefix + key;
+        }
+
+    }
+
+    static class Settings implements Configuration {
+    }
+
+    @Test
+    void nodesAreCachedPerKeyFormatterInstance() {
+        AtomicInteger created = new AtomicInteger();
+        ConfigProperties properties = new ConfigProperties();
+        properties.keyFormatter = new PrefixKeyFormatter("a_");
+        ConfigProperties clone = properties.clone();
+        clone.keyFormatter = new PrefixKeyFormatter("b_");
+
+        properties.nodes(Settings.class, type -> { created.incrementAndGet(); return List.of(); });
+        properties.nodes(Settings.class, type -> { created.incrementAndGet(); return List.of(); });
+        assertEquals(1, created.get());
+        clone.nodes(Settings.class, type -> { created.incrementAndGet(); return List.of(); });
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void cacheDoesNotKeepKeyFormattersAlive() throws InterruptedException {
+        ConfigProperties properties = new ConfigProperties();
+        properties.keyFormatter = new PrefixKeyFormatter("a_");
+        properties.nodes(Settings.class, type -> List.of());
+        WeakReference<KeyFormatter> keyFormatter = new WeakReference<>(properties.keyFormatter);
+        properties.keyFormatter = null;
+        for (int i = 0; i < 50 && keyFormatter.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(keyFormatter.get());
+    }
+
+}
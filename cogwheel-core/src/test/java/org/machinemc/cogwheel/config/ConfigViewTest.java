@@ -0,0 +1,133 @@
+package org.machinemc.cogwheel.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigViewTest {
+
+    public interface Server {
+
+        String host();
+
+        int port();
+
+        Database database();
+
+    }
+
+    public interface Database {
+
+        String user();
+
+    }
+
+    interface Hidden {
+
+        long timeout();
+
+    }
+
+    public interface Isolated {
+
+        String host();
+
+    }
+
+    private final MemorySerializer serializer = new MemorySerializer();
+
+    private static Map<String, Object> config() {
+        Map<String, Object> database = new LinkedHashMap<>();
+        database.put("user", "admin");
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("host", "example.org");
+        config.put("port", 25565);
+        config.put("database", database);
+        config.put("timeout", 30L);
+        return config;
+    }
+
+    @Test
+    void readsValuesAndNestedViews() {
+        Server server = serializer.view(config(), Server.class);
+        assertEquals("example.org", server.host());
+        assertEquals(25565, server.port());
+        assertEquals("admin", server.database().user());
+        assertSame(server.database(), server.database());
+    }
+
+    @Test
+    void implementsPackagePrivateInterfaces() {
+        assertEquals(30L, serializer.view(config(), Hidden.class).timeout());
+    }
+
+    @Test
+    void toStringShowsOnlyReadValues() {
+        Server server = serializer.view(config(), Server.class);
+        assertEquals("Server[]", server.toString());
+        server.port();
+        assertEquals("Server[port=25565]", server.toString());
+        server.host();
+        assertEquals("Server[host=example.org, port=25565]", server.toString());
+    }
+
+    @Test
+    void rejectsInterfacesOfLoadersThatDoNotSeeTheLibrary() throws Exception {
+        Class<?> isolated = new IsolatingLoader().loadClass(Isolated.class.getName());
+        assertNotSame(Isolated.class, isolated);
+        assertThrows(IllegalArgumentException.class, () -> serializer.view(config(), isolated));
+    }
+
+    /**
+     * Defines the classes again, with only the platform class loader as parent.
+     */
+    private static final class IsolatingLoader extends ClassLoader {
+
+        private IsolatingLoader() {
+            super(ClassLoader.getPlatformClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            try (InputStream in = ConfigViewTest.class.getResourceAsStream("/" + name.replace('.', '/') + ".class")) {
+                if (in == null) throw new ClassNotFoundException(name);
+                byte[] bytes = in.readAllBytes();
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+
+    }
+
+    private static final class MemorySerializer extends ConfigSerializer<Map<String, Object>> {
+
+        private MemorySerializer() {
+            super(new ConfigProperties());
+        }
+
+        @Override
+        protected ConfigAdapter<Map<String, Object>> newAdapter() {
+            return new MemoryConfigAdapter();
+        }
+
+        @Override
+        protected void write(Writer writer, Map<String, Object> config) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected Map<String, Object> read(Reader reader) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.machinemc.cogwheel.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveConfigTest {
+
+    public static class Settings implements Configuration {
+
+        final int port;
+
+        Settings(int port) {
+            this.port = port;
+        }
+
+    }
+
+    @Test
+    void failingListenerDoesNotSkipOthers() {
+        LiveConfig<Settings> liveConfig = new LiveConfig<>(new Settings(80));
+        List<Integer> notified = new ArrayList<>();
+        liveConfig.addListener((previous, current) -> {
+            throw new IllegalStateException("first");
+        });
+        liveConfig.addListener((previous, current) -> notified.add(current.configuration().port));
+        liveConfig.addListener((previous, current) -> {
+            throw new IllegalArgumentException("second");
+        });
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> liveConfig.set(new Settings(8080)));
+        assertEquals(List.of(8080), notified);
+        assertEquals(1, exception.getSuppressed().length);
+        assertInstanceOf(IllegalArgumentException.class, exception.getSuppressed()[0]);
+        assertEquals(8080, liveConfig.get().port);
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.machinemc.cogwheel.serialization;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.util.NumberUtils;
+import org.machinemc.cogwheel.util.error.ErrorContainer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumberSerializerTest {
+
+    private static final Serializers.NumberSerializer<BigDecimal> BIG_DECIMAL = new Serializers.NumberSerializer<>(
+            BigDecimal.class, number -> NumberUtils.parseDecimal(number.toString()));
+    private static final Serializers.NumberSerializer<Number> NUMBER = new Serializers.NumberSerializer<>(
+            Number.class, number -> NumberUtils.parse(number.toString()));
+    private static final Serializers.NumberSerializer<Integer> INTEGER = new Serializers.NumberSerializer<>(
+            Integer.class, Number::intValue);
+
+    @Test
+    void nonFiniteValuesAreReportedAsErrors() {
+        ErrorContainer errors = new ErrorContainer();
+        assertNull(Serializer.deserialize(BIG_DECIMAL, Double.NaN, errors));
+        assertTrue(errors.hasErrors());
+        ErrorContainer infinity = new ErrorContainer();
+        assertNull(Serializer.deserialize(BIG_DECIMAL, Double.POSITIVE_INFINITY, infinity));
+        assertTrue(infinity.hasErrors());
+    }
+
+    @Test
+    void numberKeepsArbitraryPrecisionTypes() {
+        assertEquals(BigInteger.valueOf(5), Serializer.deserialize(NUMBER, 5));
+        assertEquals(new BigDecimal("0.5"), Serializer.deserialize(NUMBER, 0.5));
+        assertEquals(BigInteger.TEN, Serializer.deserialize(NUMBER, "10"));
+    }
+
+    @Test
+    void primitivesAreClamped() {
+        assertEquals(Integer.valueOf(Integer.MAX_VALUE), Serializer.deserialize(INTEGER, Long.MAX_VALUE));
+        assertEquals(Integer.valueOf(0), Serializer.deserialize(INTEGER, 0.5));
+        assertEquals(Integer.valueOf(7), Serializer.deserialize(INTEGER, "7"));
+    }
+
+}
@@ -0,0 +1,38 @@
+package org.machinemc.cogwheel.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUtilsTest {
+
+    @Test
+    void contentIsReplaced() throws Exception {
+        Path directory = Files.createTempDirectory("atomic");
+        Path file = directory.resolve("nested").resolve("config.txt");
+        FileUtils.writeAtomically(file, "first".getBytes(StandardCharsets.UTF_8));
+        FileUtils.writeAtomically(file, "second".getBytes(StandardCharsets.UTF_8));
+        assertEquals("second", Files.readString(file));
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void permissionsAreKept() throws Exception {
+        Path file = Files.createTempFile("atomic", ".txt");
+        if (!file.getFileSystem().supportedFileAttributeViews().contains("posix")) return;
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(file, permissions);
+        FileUtils.writeAtomically(file, "content".getBytes(StandardCharsets.UTF_8));
+        assertEquals(permissions, Files.getPosixFilePermissions(file));
+    }
+
+}
@@ -0,0 +1,28 @@
+package org.machinemc.cogwheel.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumberUtilsTest {
+
+    @Test
+    void yamlSpecialDecimalsAreParsed() {
+        for (String infinity : new String[]{".inf", ".Inf", ".INF", "+.inf"})
+            assertEquals(Double.POSITIVE_INFINITY, NumberUtils.parseCompactDecimal(infinity));
+        assertEquals(Double.NEGATIVE_INFINITY, NumberUtils.parseCompactDecimal("-.Inf"));
+        for (String nan : new String[]{".nan", ".NaN", ".NAN"})
+            assertEquals(Double.NaN, NumberUtils.parseCompactDecimal(nan));
+        assertThrows(NumberFormatException.class, () -> NumberUtils.parseCompactDecimal("-.nan"));
+        assertThrows(NumberFormatException.class, () -> NumberUtils.parseCompactDecimal(".infinity"));
+    }
+
+    @Test
+    void compactDecimalFallsBackToBigDecimal() {
+        assertEquals(Double.valueOf(1.5), NumberUtils.parseCompactDecimal("1.5"));
+        assertEquals(new BigDecimal("1e400"), NumberUtils.parseCompactDecimal("1e400"));
+    }
+
+}
@@ -3,7 +3,10 @@ package org.machinemc.cogwheel.json;
 import org.jetbrains.annotations.Nullable;
 import org.machinemc.cogwheel.config.ConfigAdapter;
 import com.google.gson.*;
+import org.machinemc.cogwheel.util.NumberUtils;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
 
 public class JSONConfigAdapter extends ConfigAdapter<JsonObject> {
@@ -26,7 +29,7 @@ public class JSONConfigAdapter extends ConfigAdapter<JsonObject> {
                 .filter(JsonElement::isJsonPrimitive)
                 .map(JsonElement::getAsJsonPrimitive)
                 .filter(JsonPrimitive::isNumber)
-                .map(JsonPrimitive::getAsNumber);
+                .map(JSONConfigAdapter::getAsNumber);
     }
 
     @Override
@@ -118,11 +121,30 @@ public class JSONConfigAdapter extends ConfigAdapter<JsonObject> {
     }
 
     private static Object mapJSONPrimitive(JsonPrimitive jsonPrimitive) {
-        if (jsonPrimitive.isNumber()) return jsonPrimitive.getAsNumber();
+        if (jsonPrimitive.isNumber()) return getAsNumber(jsonPrimitive);
         if (jsonPrimitive.isBoolean()) return jsonPrimitive.getAsBoolean();
         return jsonPrimitive.getAsString();
     }
 
+    /**
+     * Returns the number of the primitive, resolving numbers parsed lazily by Gson
+     * into their narrowest exact representation, so they can be used without parsing them again.
+     *
+     * @param jsonPrimitive number primitive
+     * @return number of the primitive
+     */
+    private static Number getAsNumber(JsonPrimitive jsonPrimitive) {
+        Number number = jsonPrimitive.getAsNumber();
+        if (number instanceof Integer || number instanceof Long || number instanceof Double
+                || number instanceof Float || number instanceof Short || number instanceof Byte
+                || number instanceof BigInteger || number instanceof BigDecimal) return number;
+        try {
+            return NumberUtils.parseCompact(number.toString());
+        } catch (NumberFormatException exception) {
+            return number;
+        }
+    }
+
     private static Object[] mapJSONArray(JsonArray jsonArray) {
         Object[] array = new Object[jsonArray.size()];
         for (int i = 0; i < array.length; i++) array[i] = mapJSONElement(jsonArray.get(i));
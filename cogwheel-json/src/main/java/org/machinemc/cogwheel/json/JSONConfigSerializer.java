@@ -3,16 +3,18 @@ package org.machinemc.cogwheel.json;
 import org.machinemc.cogwheel.config.ConfigAdapter;
 import org.machinemc.cogwheel.config.ConfigProperties;
 import org.machinemc.cogwheel.config.ConfigSerializer;
+import org.machinemc.cogwheel.config.KeyProjection;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import org.machinemc.cogwheel.util.FileUtils;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 
 public class JSONConfigSerializer extends ConfigSerializer<JsonObject> {
 
@@ -26,24 +28,50 @@ public class JSONConfigSerializer extends ConfigSerializer<JsonObject> {
     }
 
     @Override
-    protected void save(File file, JsonObject jsonObject) {
-        FileUtils.createIfAbsent(file);
-        try (FileWriter writer = new FileWriter(file)) {
-            getProperties(JSONConfigProperties.class).gson().toJson(jsonObject, writer);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    protected void write(Writer writer, JsonObject jsonObject) {
+        getProperties(JSONConfigProperties.class).gson().toJson(jsonObject, writer);
+    }
+
+    @Override
+    protected JsonObject read(Reader reader) {
+        JsonElement jsonElement = JsonParser.parseReader(reader);
+        if (jsonElement.isJsonObject()) return jsonElement.getAsJsonObject();
+        throw new IllegalArgumentException("Couldn't read JSON, expected an object but got '" + jsonElement + "'");
     }
 
+    /**
+     * Reads the document with a streaming reader, values outside of the projection
+     * are skipped without being built. As with a full read, the last of duplicate keys wins.
+     */
     @Override
-    public JsonObject load(File file) {
-        try (FileReader reader = new FileReader(file)) {
-            JsonElement jsonElement = JsonParser.parseReader(reader);
-            if (jsonElement.isJsonObject()) return jsonElement.getAsJsonObject();
-            throw new IllegalArgumentException("Couldn't read JSON in '" + file + "'");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    protected JsonObject read(Reader reader, KeyProjection projection) throws IOException {
+        if (projection.includesAll()) return read(reader);
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setStrictness(Strictness.LENIENT);
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+            JsonElement jsonElement = JsonParser.parseReader(jsonReader);
+            throw new IllegalArgumentException("Couldn't read JSON, expected an object but got '" + jsonElement + "'");
+        }
+        return readObject(jsonReader, projection);
+    }
+
+    private static JsonObject readObject(JsonReader reader, KeyProjection projection) throws IOException {
+        JsonObject jsonObject = new JsonObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            KeyProjection child = projection.child(name);
+            if (child == null) {
+                reader.skipValue();
+                continue;
+            }
+            if (!child.includesAll() && reader.peek() == JsonToken.BEGIN_OBJECT)
+                jsonObject.add(name, readObject(reader, child));
+            else
+                jsonObject.add(name, JsonParser.parseReader(reader));
         }
+        reader.endObject();
+        return jsonObject;
     }
 
     public static JSONConfigSerializer newDefault() {
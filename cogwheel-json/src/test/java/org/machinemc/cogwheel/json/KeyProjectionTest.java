@@ -0,0 +1,67 @@
+package org.machinemc.cogwheel.json;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.config.KeyProjection;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyProjectionTest {
+
+    public static class Port implements Configuration {
+
+        private int port;
+
+    }
+
+    public static class PortOnly implements Configuration {
+
+        private Port server = new Port();
+
+    }
+
+    private final JSONConfigSerializer serializer = JSONConfigSerializer.newDefault();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void skippedValuesAreNotBuilt() {
+        String json = """
+                {"name": {"deep": [1, {"x": [true, null]}]}, "server": {"host": "h", "port": 1}, "tags": ["a"]}
+                """;
+        JsonObject jsonObject = serializer.load(new StringReader(json), KeyProjection.of("server.port", "tags"));
+        assertEquals(Set.of("server", "tags"), jsonObject.keySet());
+        assertEquals(Set.of("port"), jsonObject.getAsJsonObject("server").keySet());
+        assertEquals(1, jsonObject.getAsJsonArray("tags").size());
+    }
+
+    @Test
+    void lastDuplicateKeyWinsLikeAFullRead() {
+        String json = """
+                {"server": {"port": 1}, "name": "x", "server": {"port": 2, "port": 3}}
+                """;
+        JsonObject full = serializer.load(new StringReader(json));
+        JsonObject projected = serializer.load(new StringReader(json), KeyProjection.of("server.port"));
+        assertEquals(full.get("server"), projected.get("server"));
+        assertEquals(3, projected.getAsJsonObject("server").get("port").getAsInt());
+    }
+
+    @Test
+    void projectionClassIgnoresValuesItDoesNotDeclare() throws Exception {
+        Path file = directory.resolve("config.json");
+        Files.writeString(file, """
+                {"server": {"port": 8080, "host": {"unexpected": "section"}}, "name": [1, 2]}
+                """);
+        assertEquals(KeyProjection.of("server.port"), serializer.projectionOf(PortOnly.class));
+        assertEquals(8080, serializer.loadProjection(file, PortOnly.class).server.port);
+    }
+
+}
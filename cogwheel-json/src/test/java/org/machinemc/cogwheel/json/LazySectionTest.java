@@ -0,0 +1,78 @@
+package org.machinemc.cogwheel.json;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.config.LazySection;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazySectionTest {
+
+    public static class Section implements Configuration {
+
+        private int size = 1;
+
+    }
+
+    public static class Root implements Configuration {
+
+        private int port = 80;
+        private LazySection<Section> section = LazySection.of(new Section());
+
+    }
+
+    private final JSONConfigSerializer serializer = JSONConfigSerializer.newDefault();
+
+    private Path save(Root root) throws Exception {
+        Path file = Files.createTempFile("lazy", ".json");
+        serializer.save(file, root);
+        return file;
+    }
+
+    @Test
+    void sectionIsLoadedOnFirstAccess() throws Exception {
+        Path file = save(new Root());
+        Root loaded = serializer.load(file, Root.class);
+        assertFalse(loaded.section.isLoaded());
+        assertEquals(1, loaded.section.get().size);
+        assertTrue(loaded.section.isLoaded());
+    }
+
+    @Test
+    void unchangedFileHasNoDifferences() throws Exception {
+        Path file = save(new Root());
+        Root previous = serializer.load(file, Root.class);
+        Root current = serializer.load(file, Root.class);
+        assertTrue(serializer.diff(previous, current).isEmpty());
+        assertEquals(List.of(), serializer.loadInto(file, previous));
+        assertFalse(previous.section.isLoaded());
+    }
+
+    @Test
+    void changedUnloadedSectionIsReported() throws Exception {
+        Path file = save(new Root());
+        Root previous = serializer.load(file, Root.class);
+        Root changed = new Root();
+        changed.section.get().size = 2;
+        Root current = serializer.load(save(changed), Root.class);
+        assertEquals(List.of("section"), serializer.loadInto(save(changed), previous));
+        assertFalse(serializer.diff(serializer.load(file, Root.class), current).isEmpty());
+    }
+
+    @Test
+    void loadedSectionsAreComparedByValue() throws Exception {
+        Path file = save(new Root());
+        Root previous = serializer.load(file, Root.class);
+        Root current = serializer.load(file, Root.class);
+        previous.section.get();
+        current.section.get().size = 3;
+        assertEquals("section.size", serializer.diff(previous, current).changes().getFirst().path());
+        serializer.diff(previous, current).applyTo(previous);
+        assertEquals(3, previous.section.get().size);
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.machinemc.cogwheel.json;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.machinemc.cogwheel.config.ConfigAdapter;
+import org.machinemc.cogwheel.config.ConfigSerializer;
+import org.machinemc.cogwheel.config.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LegacySerializerTest {
+
+    public static class Root implements Configuration {
+
+        private int port = 80;
+
+    }
+
+    /**
+     * Serializer implementing only the file based hooks it had to implement before
+     * {@code write(Writer, T)} and {@code read(Reader)} existed.
+     */
+    static class LegacySerializer extends ConfigSerializer<JsonObject> {
+
+        LegacySerializer() {
+            super(JSONConfigSerializer.newDefault().getProperties());
+        }
+
+        @Override
+        protected ConfigAdapter<JsonObject> newAdapter() {
+            return new JSONConfigAdapter();
+        }
+
+        @Override
+        protected void save(File file, JsonObject jsonObject) {
+            try {
+                Files.writeString(file.toPath(), jsonObject.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public JsonObject load(File file) {
+            try {
+                return JsonParser.parseString(Files.readString(file.toPath())).getAsJsonObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    static class EmptySerializer extends ConfigSerializer<JsonObject> {
+
+        EmptySerializer() {
+            super(JSONConfigSerializer.newDefault().getProperties());
+        }
+
+        @Override
+        protected ConfigAdapter<JsonObject> newAdapter() {
+            return new JSONConfigAdapter();
+        }
+
+    }
+
+    @Test
+    void fileHooksAreUsedForSavingAndLoading(@TempDir Path directory) throws Exception {
+        LegacySerializer serializer = new LegacySerializer();
+        Path file = directory.resolve("legacy.json");
+        Root root = new Root();
+        root.port = 8080;
+        serializer.save(file.toFile(), root);
+        assertEquals("{\"port\":8080}", Files.readString(file));
+        assertEquals(8080, serializer.load(file, Root.class).port);
+        assertFalse(serializer.saveIfChanged(file, root));
+    }
+
+    @Test
+    void missingHooksFailInsteadOfRecursing(@TempDir Path directory) {
+        EmptySerializer serializer = new EmptySerializer();
+        assertThrows(UnsupportedOperationException.class, () -> serializer.saveToBytes(new Root()));
+        assertThrows(RuntimeException.class, () -> serializer.save(directory.resolve("empty.json"), new Root()));
+    }
+
+}
@@ -0,0 +1,110 @@
+package org.machinemc.cogwheel.json;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.machinemc.cogwheel.config.TrackedConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackedConfigurationTest {
+
+    public static class Tracked extends TrackedConfiguration {
+
+        private int a = 1;
+
+        void setA(int a) {
+            this.a = a;
+            markDirty("a");
+        }
+
+    }
+
+    public static class Listed extends TrackedConfiguration {
+
+        private List<String> names = new ArrayList<>(List.of("a"));
+
+    }
+
+    public static class Misspelled extends TrackedConfiguration {
+
+        private int port = 80;
+
+        void setPort(int port) {
+            this.port = port;
+            markDirty("prot");
+        }
+
+    }
+
+    private final JSONConfigSerializer serializer = JSONConfigSerializer.newDefault();
+
+    @Test
+    void unchangedConfigurationIsNotSavedAgain(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("tracked.json");
+        Tracked tracked = new Tracked();
+        assertTrue(serializer.saveIfChanged(file, tracked));
+        assertFalse(serializer.saveIfChanged(file, tracked));
+    }
+
+    @Test
+    void serializingDoesNotHideChangesFromTheNextSave(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("tracked.json");
+        Tracked tracked = new Tracked();
+        serializer.save(file, tracked);
+        tracked.setA(42);
+        serializer.serialize(tracked);
+        assertTrue(serializer.saveIfChanged(file, tracked));
+        assertTrue(Files.readString(file).contains("42"));
+    }
+
+    @Test
+    void externalEditIsOverwritten(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("tracked.json");
+        Tracked tracked = new Tracked();
+        serializer.save(file, tracked);
+        Files.writeString(file, "{\"a\": 7}");
+        assertTrue(serializer.saveIfChanged(file, tracked));
+        assertEquals(1, serializer.load(file, Tracked.class).a);
+    }
+
+    @Test
+    void trackerIsCreatedOnce() throws Exception {
+        Tracked tracked = new Tracked();
+        List<Callable<TrackedConfiguration.Tracker>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) tasks.add(tracked::tracker);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            TrackedConfiguration.Tracker first = null;
+            for (Future<TrackedConfiguration.Tracker> future : executor.invokeAll(tasks)) {
+                if (first == null) first = future.get();
+                assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void listModifiedInPlaceIsSavedAgain(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("listed.json");
+        Listed listed = new Listed();
+        assertTrue(serializer.saveIfChanged(file, listed));
+        assertFalse(serializer.saveIfChanged(file, listed));
+        listed.names.add("b");
+        assertTrue(serializer.saveIfChanged(file, listed));
+        assertEquals(List.of("a", "b"), serializer.load(file, Listed.class).names);
+    }
+
+    @Test
+    void unknownFieldNameFailsWhenFirstTracked() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new Misspelled().isDirty());
+        assertTrue(exception.getMessage().contains("'prot'"));
+    }
+
+}
@@ -2,28 +2,200 @@ package org.machinemc.cogwheel.properties;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
-public class CommentedProperties extends Properties {
+/**
+ * Ordered properties with comments.
+ * <p>
+ * Each entry keeps its value and comments together, in insertion order.
+ * Keys are additionally indexed by their dot separated segments, so all entries
+ * of a section such as {@code db.pool} can be found without scanning every key.
+ * <p>
+ * Instances are not thread-safe, use {@link #toProperties()} and {@link #of(Properties)}
+ * to convert from and to {@link Properties} where it is required.
+ */
+public class CommentedProperties {
 
-    private final Map<String, @Nullable String[]> comments = new ConcurrentHashMap<>();
-    private final SequencedSet<Object> orderedKeys = new LinkedHashSet<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final Section root = new Section();
 
+    {
+        root.children = new LinkedHashMap<>();
+    }
+
+    public @Nullable Object get(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    public @Nullable Object put(String key, @Nullable Object value) {
+        Objects.requireNonNull(key, "key");
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(key, value);
+            entries.put(key, entry);
+            index(entry);
+            return null;
+        }
+        Object previous = entry.value;
+        entry.value = value;
+        return previous;
+    }
+
+    public @Nullable Object remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) return null;
+        unindex(root, key, 0);
+        return entry.value;
+    }
+
+    /**
+     * Removes all entries of a section, that is the entry with given key
+     * and all entries whose keys start with the key followed by a dot.
+     *
+     * @param key key of the section
+     */
+    public void removeSection(String key) {
+        Section section = section(key);
+        if (section == null) return;
+        List<Entry> removed = new ArrayList<>();
+        section.collect(removed);
+        for (Entry entry : removed) remove(entry.key);
+    }
+
+    public boolean containsKey(String key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public void clear() {
+        entries.clear();
+        root.children.clear();
+    }
+
+    /**
+     * @return unmodifiable view of the keys in their order
+     */
+    public SequencedSet<String> keySet() {
+        return Collections.unmodifiableSequencedSet(entries.sequencedKeySet());
+    }
+
+    /**
+     * Sets the comments of an entry, {@code null} elements represent empty lines.
+     * Has no effect if there is no entry with given key.
+     *
+     * @param key key of the entry
+     * @param value comments of the entry
+     */
     public void setComments(String key, @Nullable String[] value) {
-        comments.put(key, value);
+        Entry entry = entries.get(key);
+        if (entry != null) entry.comments = value;
+    }
+
+    public @Nullable String[] getComments(String key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.comments : null;
     }
 
+    /**
+     * @return copy of the comments of all entries that have any
+     */
     public Map<String, String[]> getComments() {
+        Map<String, String[]> comments = new LinkedHashMap<>();
+        for (Entry entry : entries.values()) {
+            if (entry.comments != null) comments.put(entry.key, entry.comments);
+        }
         return Collections.unmodifiableMap(comments);
     }
 
-    public SequencedSet<Object> getOrderedKeys() {
-        return orderedKeys;
+    /**
+     * @return unmodifiable view of the keys in their order
+     * @see #keySet()
+     */
+    public SequencedSet<String> getOrderedKeys() {
+        return keySet();
+    }
+
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    Section root() {
+        return root;
+    }
+
+    /**
+     * @param key dot separated key of the section
+     * @return the section, {@code null} if there is no entry in it
+     */
+    @Nullable Section section(String key) {
+        Section section = root;
+        int start = 0;
+        while (section != null) {
+            int end = key.indexOf('.', start);
+            if (end == -1) return section.child(key.substring(start));
+            section = section.child(key.substring(start, end));
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private void index(Entry entry) {
+        String key = entry.key;
+        Section section = root;
+        int start = 0;
+        int end;
+        while ((end = key.indexOf('.', start)) != -1) {
+            section = section.getOrCreateChild(key.substring(start, end));
+            start = end + 1;
+        }
+        section.getOrCreateChild(key.substring(start)).entry = entry;
+    }
+
+    private static void unindex(Section section, String key, int start) {
+        int end = key.indexOf('.', start);
+        String name = end == -1 ? key.substring(start) : key.substring(start, end);
+        Section child = section.child(name);
+        if (child == null) return;
+        if (end == -1) child.entry = null;
+        else unindex(child, key, end + 1);
+        if (child.isEmpty()) section.children.remove(name);
+    }
+
+    /**
+     * Converts these properties to {@link Properties}, values are converted
+     * to strings and comments are dropped.
+     *
+     * @return new properties with the same entries
+     */
+    public Properties toProperties() {
+        Properties properties = new Properties();
+        for (Entry entry : entries.values())
+            properties.setProperty(entry.key, entry.valueAsString());
+        return properties;
+    }
+
+    /**
+     * Copies the entries of {@link Properties}, only string keys are kept.
+     *
+     * @param properties properties to copy
+     * @return new commented properties with the same entries
+     */
+    public static CommentedProperties of(Properties properties) {
+        CommentedProperties commentedProperties = new CommentedProperties();
+        properties.forEach((key, value) -> {
+            if (key instanceof String string) commentedProperties.put(string, value);
+        });
+        return commentedProperties;
     }
 
     public void store(Writer writer,
@@ -31,31 +203,8 @@ public class CommentedProperties extends Properties {
                       boolean exclamationMarkComments,
                       boolean spacesBetweenSeparator,
                       boolean emptyLineBetweenEntries) throws IOException {
-
-        char commentChar = exclamationMarkComments ? '!' : '#';
-        String separator;
-        if (colonSeparator) {
-            separator = spacesBetweenSeparator ? ": " : ":";
-        } else {
-            separator = spacesBetweenSeparator ? " = " : "=";
-        }
-
-        String[] keys = orderedKeys.stream().map(String::valueOf).toArray(String[]::new);
-        for (String key : keys) {
-            String[] comments = this.comments.get(key);
-            if (comments != null) {
-                for (String comment : comments) {
-                    String commentLine = comment == null ? "" : commentChar + " " + comment;
-                    writer.write(commentLine + "\n");
-                }
-            }
-            writer.write(key);
-            writer.write(separator);
-            writer.write(saveConvert(String.valueOf(get(key))));
-
-            writer.write("\n");
-            if (emptyLineBetweenEntries) writer.write("\n");
-        }
+        new PropertiesWriter(writer, colonSeparator, exclamationMarkComments, spacesBetweenSeparator, emptyLineBetweenEntries)
+                .write(this);
     }
 
     public void store(OutputStream os,
@@ -63,75 +212,125 @@ public class CommentedProperties extends Properties {
                       boolean exclamationMarkComments,
                       boolean spacesBetweenSeparator,
                       boolean emptyLineBetweenEntries) throws IOException {
-        store(new OutputStreamWriter(os), colonSeparator, exclamationMarkComments, spacesBetweenSeparator, emptyLineBetweenEntries);
-    }
-
-    private static String saveConvert(String string) {
-        return saveConvert(string, false, true);
-    }
-
-    private static String saveConvert(String string, boolean escapeSpace, boolean escapeUnicode) {
-        int length = string.length();
-        int bufferLength = length * 2;
-        if (bufferLength < 0) bufferLength = Integer.MAX_VALUE;
-        StringBuilder outBuffer = new StringBuilder(bufferLength);
-        for (int i = 0; i < length; i++) {
-            char aChar = string.charAt(i);
-            if (aChar > 0x3D && aChar < 0x7F) {
-                if (aChar == '\\') {
-                    outBuffer.append("\\\\");
-                    continue;
-                }
-                outBuffer.append(aChar);
-                continue;
-            }
-            switch (aChar) {
-                case ' ' -> {
-                    if (i == 0 || escapeSpace)
-                        outBuffer.append('\\');
-                    outBuffer.append(' ');
-                }
-                case '\t' -> outBuffer.append("\\t");
-                case '\n' -> outBuffer.append("\\n");
-                case '\r' -> outBuffer.append("\\r");
-                case '\f' -> outBuffer.append("\\f");
-                case '=', ':', '#', '!' -> outBuffer.append('\\').append(aChar);
-                default -> {
-                    if ((0x20 > aChar || aChar > 0x7E) && escapeUnicode) {
-                        outBuffer.append("\\u%04X".formatted((int) aChar));
-                    } else {
-                        outBuffer.append(aChar);
-                    }
-                }
-            }
-        }
-        return outBuffer.toString();
+        store(new OutputStreamWriter(os, StandardCharsets.UTF_8), colonSeparator, exclamationMarkComments, spacesBetweenSeparator, emptyLineBetweenEntries);
     }
 
-    @Override
-    public synchronized Object put(Object key, Object value) {
-        Object previous = super.put(key, value);
-        orderedKeys.add(key);
-        return previous;
+    /**
+     * Reads the entries from the reader, unlike {@link Properties#load(Reader)}
+     * the comments preceding the entries are kept.
+     *
+     * @param reader the input character stream
+     * @throws IOException if reading fails
+     */
+    public void load(Reader reader) throws IOException {
+        new PropertiesReader(reader).read(this);
+    }
+
+    /**
+     * Reads the entries from the input stream, which is assumed
+     * to use the ISO 8859-1 encoding as in {@link Properties#load(InputStream)}.
+     *
+     * @param inStream the input stream
+     * @throws IOException if reading fails
+     */
+    public void load(InputStream inStream) throws IOException {
+        load(new InputStreamReader(inStream, StandardCharsets.ISO_8859_1));
     }
 
     @Override
-    public synchronized Object remove(Object key) {
-        Object previous = super.remove(key);
-        orderedKeys.remove(key);
-        return previous;
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CommentedProperties that)) return false;
+        if (size() != that.size()) return false;
+        for (Entry entry : entries.values()) {
+            Entry other = that.entries.get(entry.key);
+            if (other == null || !Objects.equals(entry.value, other.value)) return false;
+        }
+        return true;
     }
 
     @Override
-    public synchronized void putAll(Map<?, ?> t) {
-        super.putAll(t);
-        orderedKeys.addAll(t.keySet());
+    public int hashCode() {
+        int hash = 0;
+        for (Entry entry : entries.values())
+            hash += entry.key.hashCode() ^ Objects.hashCode(entry.value);
+        return hash;
     }
 
     @Override
-    public synchronized void clear() {
-        super.clear();
-        orderedKeys.clear();
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Entry entry : entries.values())
+            joiner.add(entry.key + "=" + entry.value);
+        return joiner.toString();
+    }
+
+    /**
+     * Node of the index over the key segments.
+     */
+    static final class Section {
+
+        @Nullable Entry entry;
+        @Nullable LinkedHashMap<String, Section> children;
+
+        @Nullable Section child(String name) {
+            return children != null ? children.get(name) : null;
+        }
+
+        Map<String, Section> children() {
+            return children != null ? children : Map.of();
+        }
+
+        boolean hasChildren() {
+            return children != null && !children.isEmpty();
+        }
+
+        boolean isEmpty() {
+            return entry == null && !hasChildren();
+        }
+
+        /**
+         * @return the first entry of this section, {@code null} if there is none
+         */
+        @Nullable Entry firstEntry() {
+            if (entry != null) return entry;
+            for (Section child : children().values()) {
+                Entry first = child.firstEntry();
+                if (first != null) return first;
+            }
+            return null;
+        }
+
+        void collect(List<Entry> entries) {
+            if (entry != null) entries.add(entry);
+            for (Section child : children().values()) child.collect(entries);
+        }
+
+        private Section getOrCreateChild(String name) {
+            if (children == null) children = new LinkedHashMap<>(4);
+            return children.computeIfAbsent(name, k -> new Section());
+        }
+
+    }
+
+    static final class Entry {
+
+        final String key;
+        @Nullable Object value;
+        @Nullable String[] comments;
+
+        private Entry(String key, @Nullable Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        /**
+         * @return value of the entry as string, empty string for {@code null}
+         */
+        String valueAsString() {
+            return value != null ? value.toString() : "";
+        }
+
     }
 
 }
@@ -5,108 +5,334 @@ import org.machinemc.cogwheel.config.ConfigAdapter;
 import org.machinemc.cogwheel.util.NumberUtils;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Adapter of properties, where sections and lists are flattened to dotted keys.
+ * <p>
+ * Lists are written with their indices as keys ({@code hosts.0}, {@code hosts.1}) and sections
+ * with their keys ({@code db.pool.size}). Empty lists and sections have no entries to be flattened to,
+ * they are written as {@value EMPTY_ARRAY} and {@value EMPTY_MAP}. The flattening has the following limits:
+ * <ul>
+ *     <li>keys of maps must not contain dots, they would be read back as nested sections,
+ *     such maps are rejected with {@link IllegalArgumentException}</li>
+ *     <li>a map whose keys are exactly the indices {@code 0..n-1} is additionally marked with
+ *     a {@value EMPTY_MAP} entry under its own key, without it the map is read back as a list</li>
+ *     <li>string values consisting of backslashes followed by {@value EMPTY_ARRAY} or {@value EMPTY_MAP}
+ *     are written with one more leading backslash, so they are not read back as empty collections</li>
+ * </ul>
+ */
 public class PropertiesConfigAdapter extends ConfigAdapter<CommentedProperties> {
 
+    private static final Object INVALID = new Object();
+
+    /**
+     * Values of empty lists and sections, which have no entries to be flattened to.
+     * The map marker also marks sections whose keys would otherwise be read as list indices.
+     */
+    static final String EMPTY_ARRAY = "[]";
+    static final String EMPTY_MAP = "{}";
+
     private CommentedProperties properties = new CommentedProperties();
+    private final Map<String, Parsed> parsed = new HashMap<>();
 
     @Override
     public CommentedProperties getConfig() {
         return properties;
     }
 
+    /**
+     * Returns the top level keys, entries with dotted keys such as {@code db.pool.size}
+     * are only represented by their first segment.
+     *
+     * @return top level keys
+     */
     @Override
     public Set<String> keys() {
-        return properties.keySet().stream().map(String::valueOf).collect(Collectors.toSet());
+        return Collections.unmodifiableSet(properties.root().children().keySet());
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return properties.root().child(key) != null;
     }
 
     @Override
     public Optional<Number> getNumber(String key) {
-        if (!properties.containsKey(key)) return Optional.empty();
         Object o = properties.get(key);
+        if (o == null) return Optional.empty();
         if (o instanceof Number n) return Optional.of(n);
-        try {
-            Number number = NumberUtils.parse(o.toString());
-            properties.put(key, number);
-            return Optional.of(number);
-        } catch (Exception exception) {
-            return Optional.empty();
-        }
+        Parsed cache = parsed(key, o);
+        if (cache.number == null) cache.number = parseNumber(o.toString());
+        return cache.number instanceof Number n ? Optional.of(n) : Optional.empty();
     }
 
     @Override
     public Optional<String> getString(String key) {
-        if (!properties.containsKey(key)) return Optional.empty();
-        return properties.get(key).toString().describeConstable();
+        Object o = properties.get(key);
+        if (o == null) return Optional.empty();
+        return Optional.of(unescape(o).toString());
     }
 
     @Override
     public Optional<Boolean> getBoolean(String key) {
-        if (!properties.containsKey(key)) return Optional.empty();
         Object o = properties.get(key);
+        if (o == null) return Optional.empty();
         if (o instanceof Boolean b) return Optional.of(b);
+        Parsed cache = parsed(key, o);
+        if (cache.bool == null) cache.bool = parseBoolean(o.toString());
+        return cache.bool instanceof Boolean b ? Optional.of(b) : Optional.empty();
+    }
+
+    private void setValue(String key, @Nullable Object value) {
+        CommentedProperties.Section section = properties.root().child(key);
+        if (section != null && section.hasChildren()) properties.removeSection(key);
+        properties.put(key, escape(value));
+    }
+
+    /**
+     * Writes the value under the key, sections and lists are flattened
+     * to dotted ({@code db.pool.size}) and indexed ({@code hosts.0}) keys.
+     * Empty sections and lists are written as {@value EMPTY_MAP} and {@value EMPTY_ARRAY}.
+     *
+     * @throws IllegalArgumentException if a key of a map contains a dot
+     */
+    private void flatten(String key, @Nullable Object value) {
+        switch (value) {
+            case Object[] array -> {
+                if (array.length == 0) properties.put(key, EMPTY_ARRAY);
+                for (int i = 0; i < array.length; i++)
+                    flatten(key + "." + i, array[i]);
+            }
+            case Collection<?> collection -> flatten(key, collection.toArray());
+            case Map<?, ?> map -> {
+                for (Object name : map.keySet()) {
+                    if (String.valueOf(name).indexOf('.') != -1)
+                        throw new IllegalArgumentException("Key '" + name + "' of '" + key + "' contains a dot, "
+                                + "it can not be written to properties");
+                }
+                if (map.isEmpty() || isIndexed(map.keySet())) properties.put(key, EMPTY_MAP);
+                map.forEach((name, element) -> flatten(key + "." + name, element));
+            }
+            case CommentedProperties config -> {
+                if (config.isEmpty() || isIndexed(config.root().children().keySet())) properties.put(key, EMPTY_MAP);
+                for (CommentedProperties.Entry entry : config.entries()) {
+                    String entryKey = key + "." + entry.key;
+                    properties.put(entryKey, entry.value);
+                    properties.setComments(entryKey, entry.comments);
+                }
+            }
+            case ConfigAdapter<?> adapter -> flatten(key, adapter.getConfig() instanceof CommentedProperties config
+                    ? config
+                    : adapter.asMapView());
+            case null, default -> properties.put(key, escape(value));
+        }
+    }
+
+    /**
+     * @return whether the keys are the indices {@code 0..n-1} and would be read back as a list
+     */
+    private static boolean isIndexed(Collection<?> keys) {
+        int size = keys.size();
+        if (size == 0) return false;
+        boolean[] present = new boolean[size];
+        for (Object key : keys) {
+            int index = parseIndex(String.valueOf(key));
+            if (index < 0 || index >= size || present[index]) return false;
+            present[index] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Escapes strings that would be read back as the value of an empty list or section.
+     */
+    private static @Nullable Object escape(@Nullable Object value) {
+        return value instanceof String string && isMarker(string) ? "\\" + string : value;
+    }
+
+    private static @Nullable Object unescape(@Nullable Object value) {
+        return value instanceof String string && string.startsWith("\\") && isMarker(string)
+                ? string.substring(1)
+                : value;
+    }
+
+    /**
+     * @return whether the string is {@value EMPTY_ARRAY} or {@value EMPTY_MAP} preceded by any number of backslashes
+     */
+    private static boolean isMarker(String string) {
+        int start = 0;
+        while (start < string.length() && string.charAt(start) == '\\') start++;
+        return string.length() - start == 2 && (string.endsWith(EMPTY_ARRAY) || string.endsWith(EMPTY_MAP));
+    }
+
+    private static @Nullable Object valueOf(CommentedProperties.Section section) {
+        if (!section.hasChildren()) {
+            if (hasValue(section, EMPTY_ARRAY)) return new Object[0];
+            if (hasValue(section, EMPTY_MAP)) return new LinkedHashMap<>();
+            return section.entry != null ? unescape(section.entry.value) : null;
+        }
+        Object[] array = asArray(section);
+        return array != null ? array : asMap(section);
+    }
+
+    /**
+     * @return elements of the section, {@code null} if its keys are not the indices {@code 0..n-1}
+     * or it is marked as a section
+     */
+    private static Object @Nullable [] asArray(CommentedProperties.Section section) {
+        if (hasValue(section, EMPTY_MAP)) return null;
+        Map<String, CommentedProperties.Section> children = section.children();
+        Object[] array = new Object[children.size()];
+        boolean[] present = new boolean[array.length];
+        for (Map.Entry<String, CommentedProperties.Section> entry : children.entrySet()) {
+            int index = parseIndex(entry.getKey());
+            if (index < 0 || index >= array.length || present[index]) return null;
+            present[index] = true;
+            array[index] = valueOf(entry.getValue());
+        }
+        return array;
+    }
+
+    private static Map<String, Object> asMap(CommentedProperties.Section section) {
+        Map<String, CommentedProperties.Section> children = section.children();
+        Map<String, Object> map = LinkedHashMap.newLinkedHashMap(children.size());
+        children.forEach((name, child) -> map.put(name, valueOf(child)));
+        return map;
+    }
+
+    private static int parseIndex(String string) {
+        int length = string.length();
+        if (length == 0 || length > 9 || (length > 1 && string.charAt(0) == '0')) return -1;
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    private static boolean hasValue(CommentedProperties.Section section, String value) {
+        return section.entry != null && value.equals(section.entry.value);
+    }
+
+    /**
+     * Returns the parse cache of a property, the cache is reset
+     * whenever the raw value has been replaced.
+     */
+    private Parsed parsed(String key, Object raw) {
+        Parsed cached = parsed.get(key);
+        if (cached == null || cached.raw != raw) {
+            cached = new Parsed(raw);
+            parsed.put(key, cached);
+        }
+        return cached;
+    }
+
+    private static Object parseNumber(String string) {
+        if (string.isEmpty() || !isNumberStart(string.charAt(0))) return INVALID;
         try {
-            Boolean b = switch (o.toString().toLowerCase(Locale.ENGLISH)) {
-                case "true" -> true;
-                case "false" -> false;
-                default -> throw new IllegalArgumentException(o + " isn't a valid boolean");
-            };
-            properties.put(key, b);
-            return Optional.of(b);
-        } catch (Exception exception) {
-            return Optional.empty();
+            return NumberUtils.parseCompact(string);
+        } catch (NumberFormatException exception) {
+            return INVALID;
         }
     }
 
+    private static boolean isNumberStart(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    private static Object parseBoolean(String string) {
+        if (string.equalsIgnoreCase("true")) return Boolean.TRUE;
+        if (string.equalsIgnoreCase("false")) return Boolean.FALSE;
+        return INVALID;
+    }
+
     @Override
     public Optional<Object[]> getArray(String key) {
-        throw new UnsupportedOperationException();
+        CommentedProperties.Section section = properties.root().child(key);
+        if (section == null) return Optional.empty();
+        if (!section.hasChildren()) return hasValue(section, EMPTY_ARRAY) ? Optional.of(new Object[0]) : Optional.empty();
+        return Optional.ofNullable(asArray(section));
     }
 
     @Override
     public Optional<Map<String, Object>> getMap(String key) {
-        throw new UnsupportedOperationException();
+        CommentedProperties.Section section = properties.root().child(key);
+        if (section == null) return Optional.empty();
+        if (!section.hasChildren()) return hasValue(section, EMPTY_MAP) ? Optional.of(new LinkedHashMap<>()) : Optional.empty();
+        return Optional.of(asMap(section));
+    }
+
+    @Override
+    public Optional<Object> getPrimitive(String key) {
+        CommentedProperties.Section section = properties.root().child(key);
+        if (section == null) return Optional.empty();
+        if (section.hasChildren() || hasValue(section, EMPTY_ARRAY) || hasValue(section, EMPTY_MAP))
+            return Optional.ofNullable(valueOf(section));
+        return super.getPrimitive(key);
     }
 
     @Override
     public void setNull(String key) {
-        properties.put(key, null);
+        setValue(key, null);
     }
 
     @Override
     public void setNumber(String key, Number number) {
-        properties.put(key, number);
+        setValue(key, number);
     }
 
     @Override
     public void setString(String key, String string) {
-        properties.put(key, string);
+        setValue(key, string);
     }
 
     @Override
     public void setBoolean(String key, Boolean bool) {
-        properties.put(key, bool);
+        setValue(key, bool);
     }
 
     @Override
     public void setArray(String key, Object[] array) {
-        throw new UnsupportedOperationException();
+        properties.removeSection(key);
+        flatten(key, array);
     }
 
     @Override
     public void setMap(String key, Map<String, Object> map) {
-        throw new UnsupportedOperationException();
+        properties.removeSection(key);
+        flatten(key, map);
     }
 
     @Override
     public void setConfig(String key, CommentedProperties config) {
-        throw new UnsupportedOperationException();
+        properties.removeSection(key);
+        flatten(key, config);
     }
 
+    /**
+     * Sets the comments of an entry, comments of a section
+     * are placed before its first entry, which keeps its own comments.
+     */
     @Override
     public void setComments(String key, @Nullable String[] comments) {
-        properties.setComments(key, comments);
+        if (properties.containsKey(key)) {
+            properties.setComments(key, comments);
+            return;
+        }
+        if (comments == null) return;
+        CommentedProperties.Section section = properties.root().child(key);
+        CommentedProperties.Entry first = section != null ? section.firstEntry() : null;
+        if (first == null) return;
+        String[] existing = first.comments;
+        if (existing == null) {
+            first.comments = comments;
+            return;
+        }
+        String[] merged = Arrays.copyOf(comments, comments.length + existing.length);
+        System.arraycopy(existing, 0, merged, comments.length, existing.length);
+        first.comments = merged;
     }
 
     @Override
@@ -115,6 +341,23 @@ public class PropertiesConfigAdapter extends ConfigAdapter<CommentedProperties>
     @Override
     public void load(CommentedProperties properties) {
         this.properties = properties;
+        parsed.clear();
+    }
+
+    /**
+     * Parse results of a single raw property value. Both interpretations are kept
+     * since a string is usually probed for a number before anything else.
+     */
+    private static final class Parsed {
+
+        private final Object raw;
+        private @Nullable Object number;
+        private @Nullable Object bool;
+
+        private Parsed(Object raw) {
+            this.raw = raw;
+        }
+
     }
 
 }
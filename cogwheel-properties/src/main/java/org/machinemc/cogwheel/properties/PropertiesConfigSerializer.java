@@ -3,12 +3,11 @@ package org.machinemc.cogwheel.properties;
 import org.machinemc.cogwheel.config.ConfigAdapter;
 import org.machinemc.cogwheel.config.ConfigProperties;
 import org.machinemc.cogwheel.config.ConfigSerializer;
-import org.machinemc.cogwheel.util.FileUtils;
+import org.machinemc.cogwheel.config.KeyProjection;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 
 public class PropertiesConfigSerializer extends ConfigSerializer<CommentedProperties> {
 
@@ -22,31 +21,34 @@ public class PropertiesConfigSerializer extends ConfigSerializer<CommentedProper
     }
 
     @Override
-    protected void save(File file, CommentedProperties properties) {
-        FileUtils.createIfAbsent(file);
-        try (FileWriter writer = new FileWriter(file)) {
-            PropertiesConfigProperties configProperties = getProperties(PropertiesConfigProperties.class);
-            properties.store(
-                    writer,
-                    configProperties.colonSeparator(),
-                    configProperties.exclamationMarkComments(),
-                    configProperties.spacesBetweenSeparator(),
-                    configProperties.emptyLineBetweenEntries()
-            );
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
-        }
+    protected void write(Writer writer, CommentedProperties properties) throws IOException {
+        PropertiesConfigProperties configProperties = getProperties(PropertiesConfigProperties.class);
+        properties.store(
+                writer,
+                configProperties.colonSeparator(),
+                configProperties.exclamationMarkComments(),
+                configProperties.spacesBetweenSeparator(),
+                configProperties.emptyLineBetweenEntries()
+        );
     }
 
     @Override
-    public CommentedProperties load(File file) {
-        try (FileReader reader = new FileReader(file)) {
-            CommentedProperties properties = new CommentedProperties();
-            properties.load(reader);
-            return properties;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    protected CommentedProperties read(Reader reader) throws IOException {
+        CommentedProperties properties = new CommentedProperties();
+        properties.load(reader);
+        return properties;
+    }
+
+    /**
+     * Reads only the entries whose keys are in the projection, other lines are still scanned,
+     * but their values are never converted or stored.
+     */
+    @Override
+    protected CommentedProperties read(Reader reader, KeyProjection projection) throws IOException {
+        if (projection.includesAll()) return read(reader);
+        CommentedProperties properties = new CommentedProperties();
+        new PropertiesReader(reader).read(properties, projection::includes);
+        return properties;
     }
 
     public static PropertiesConfigSerializer newDefault() {
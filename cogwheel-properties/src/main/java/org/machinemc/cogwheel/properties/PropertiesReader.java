@@ -0,0 +1,233 @@
+package org.machinemc.cogwheel.properties;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads the {@code .properties} format into {@link CommentedProperties}.
+ * <p>
+ * Follows the syntax of {@link java.util.Properties#load(Reader)}, but reads through
+ * its own buffer and keeps the order of the entries and the comments preceding them.
+ */
+final class PropertiesReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EOF = -1;
+    private static final int BLANK = 0;
+    private static final int COMMENT = 1;
+    private static final int ENTRY = 2;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private final StringBuilder converted = new StringBuilder(128);
+
+    PropertiesReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads all entries into the given properties.
+     * Comment lines and blank lines between comments are attached to the following entry.
+     *
+     * @param properties properties to read into
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the input contains a malformed unicode escape
+     */
+    void read(CommentedProperties properties) throws IOException {
+        read(properties, key -> true);
+    }
+
+    /**
+     * Reads the entries accepted by the filter into the given properties, the values
+     * and comments of the other entries are skipped without being converted.
+     *
+     * @param properties properties to read into
+     * @param filter accepts the keys to read
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if the input contains a malformed unicode escape
+     */
+    void read(CommentedProperties properties, Predicate<String> filter) throws IOException {
+        List<@Nullable String> comments = new ArrayList<>();
+        int type;
+        while ((type = readLine()) != EOF) {
+            switch (type) {
+                case BLANK -> {
+                    if (!comments.isEmpty()) comments.add(null);
+                }
+                case COMMENT -> comments.add(line.toString());
+                case ENTRY -> {
+                    String key = readEntry(properties, filter);
+                    if (key == null) {
+                        comments.clear();
+                        continue;
+                    }
+                    if (comments.isEmpty()) continue;
+                    properties.setComments(key, comments.toArray(String[]::new));
+                    comments.clear();
+                }
+            }
+        }
+    }
+
+    private @Nullable String readEntry(CommentedProperties properties, Predicate<String> filter) {
+        int length = line.length();
+        int keyEnd = length;
+        int valueStart = length;
+        boolean separator = false;
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i++;
+                continue;
+            }
+            if (c == '=' || c == ':') {
+                keyEnd = i;
+                valueStart = i + 1;
+                separator = true;
+                break;
+            }
+            if (isWhitespace(c)) {
+                keyEnd = i;
+                valueStart = i + 1;
+                break;
+            }
+        }
+        while (valueStart < length && isWhitespace(line.charAt(valueStart))) valueStart++;
+        if (!separator && valueStart < length) {
+            char c = line.charAt(valueStart);
+            if (c == '=' || c == ':') valueStart++;
+            while (valueStart < length && isWhitespace(line.charAt(valueStart))) valueStart++;
+        }
+        String key = convert(0, keyEnd);
+        if (!filter.test(key)) return null;
+        properties.put(key, convert(valueStart, length));
+        return key;
+    }
+
+    /**
+     * Reads the next logical line into {@link #line}, joining continued lines.
+     * Comment lines are stored without the comment character and a single following space.
+     *
+     * @return type of the line
+     */
+    private int readLine() throws IOException {
+        line.setLength(0);
+        int c = skipWhitespace();
+        if (c == EOF) return EOF;
+        if (isLineEnd(c)) {
+            skipLineEnd(c);
+            return BLANK;
+        }
+        if (c == '#' || c == '!') {
+            c = next();
+            if (c == ' ') c = next();
+            while (c != EOF && !isLineEnd(c)) {
+                line.append((char) c);
+                c = next();
+            }
+            skipLineEnd(c);
+            return COMMENT;
+        }
+        while (true) {
+            while (c != EOF && !isLineEnd(c)) {
+                line.append((char) c);
+                c = next();
+            }
+            skipLineEnd(c);
+            if (c == EOF || !endsWithContinuation()) return ENTRY;
+            line.setLength(line.length() - 1);
+            c = skipWhitespace();
+        }
+    }
+
+    private boolean endsWithContinuation() {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) backslashes++;
+        return (backslashes & 1) == 1;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c != EOF && isWhitespace((char) c));
+        return c;
+    }
+
+    private void skipLineEnd(int c) throws IOException {
+        if (c != '\r') return;
+        if (position == limit && !fill()) return;
+        if (buffer[position] == '\n') position++;
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) return EOF;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Resolves the escape sequences in the given range of {@link #line}.
+     */
+    private String convert(int start, int end) {
+        int backslash = line.indexOf("\\", start);
+        if (backslash == -1 || backslash >= end) return line.substring(start, end);
+        converted.setLength(0);
+        converted.append(line, start, backslash);
+        for (int i = backslash; i < end; i++) {
+            char c = line.charAt(i);
+            if (c != '\\') {
+                converted.append(c);
+                continue;
+            }
+            if (++i == end) break;
+            c = line.charAt(i);
+            switch (c) {
+                case 't' -> converted.append('\t');
+                case 'n' -> converted.append('\n');
+                case 'r' -> converted.append('\r');
+                case 'f' -> converted.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= end)
+                        throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    int value = 0;
+                    for (int j = 1; j <= 4; j++) {
+                        int digit = Character.digit(line.charAt(i + j), 16);
+                        if (digit == -1) throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                        value = (value << 4) | digit;
+                    }
+                    converted.append((char) value);
+                    i += 4;
+                }
+                default -> converted.append(c);
+            }
+        }
+        return converted.toString();
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    private static boolean isLineEnd(int c) {
+        return c == '\n' || c == '\r';
+    }
+
+}
@@ -0,0 +1,151 @@
+package org.machinemc.cogwheel.properties;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes {@link CommentedProperties} in the {@code .properties} format.
+ * <p>
+ * Output is collected in its own buffer and characters are escaped using a lookup table,
+ * so the target writer only receives large chunks.
+ */
+final class PropertiesWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Escape sequences of the ASCII characters, {@code null} if the character is written as is.
+     * Characters outside ASCII are always written as unicode escapes.
+     */
+    private static final String[] ESCAPES = new String[0x80];
+
+    static {
+        for (int c = 0; c < 0x20; c++)
+            ESCAPES[c] = unicodeEscape((char) c);
+        ESCAPES[0x7F] = unicodeEscape((char) 0x7F);
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\f'] = "\\f";
+        for (char c : new char[]{'\\', '=', ':', '#', '!'})
+            ESCAPES[c] = "\\" + c;
+    }
+
+    private final Writer writer;
+    private final char commentChar;
+    private final String separator;
+    private final boolean emptyLineBetweenEntries;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    PropertiesWriter(Writer writer,
+                     boolean colonSeparator,
+                     boolean exclamationMarkComments,
+                     boolean spacesBetweenSeparator,
+                     boolean emptyLineBetweenEntries) {
+        this.writer = writer;
+        this.commentChar = exclamationMarkComments ? '!' : '#';
+        if (colonSeparator) {
+            separator = spacesBetweenSeparator ? ": " : ":";
+        } else {
+            separator = spacesBetweenSeparator ? " = " : "=";
+        }
+        this.emptyLineBetweenEntries = emptyLineBetweenEntries;
+    }
+
+    /**
+     * Writes all entries in their order and flushes the underlying writer.
+     *
+     * @param properties properties to write
+     * @throws IOException if writing fails
+     */
+    void write(CommentedProperties properties) throws IOException {
+        for (CommentedProperties.Entry entry : properties.entries()) {
+            String[] comments = entry.comments;
+            if (comments != null) {
+                for (String comment : comments) {
+                    if (comment != null) {
+                        append(commentChar);
+                        append(' ');
+                        append(comment);
+                    }
+                    append('\n');
+                }
+            }
+            appendEscaped(entry.key, true);
+            append(separator);
+            appendEscaped(entry.valueAsString(), false);
+            append('\n');
+            if (emptyLineBetweenEntries) append('\n');
+        }
+        flush();
+    }
+
+    private void appendEscaped(String string, boolean key) throws IOException {
+        int length = string.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                String escape = ESCAPES[c];
+                if (escape == null) {
+                    if (c != ' ' || (i != 0 && !key)) continue;
+                    escape = "\\ ";
+                }
+                append(string, start, i);
+                append(escape);
+            } else {
+                append(string, start, i);
+                appendUnicodeEscape(c);
+            }
+            start = i + 1;
+        }
+        append(string, start, length);
+    }
+
+    private void append(char c) throws IOException {
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = c;
+    }
+
+    private void appendUnicodeEscape(char c) throws IOException {
+        append('\\');
+        append('u');
+        append(HEX[(c >> 12) & 0xF]);
+        append(HEX[(c >> 8) & 0xF]);
+        append(HEX[(c >> 4) & 0xF]);
+        append(HEX[c & 0xF]);
+    }
+
+    private void append(String string) throws IOException {
+        append(string, 0, string.length());
+    }
+
+    private void append(String string, int start, int end) throws IOException {
+        while (start < end) {
+            if (position == buffer.length) flushBuffer();
+            int count = Math.min(end - start, buffer.length - position);
+            string.getChars(start, start + count, buffer, position);
+            position += count;
+            start += count;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        writer.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    private static String unicodeEscape(char c) {
+        return new String(new char[]{'\\', 'u', HEX[(c >> 12) & 0xF], HEX[(c >> 8) & 0xF], HEX[(c >> 4) & 0xF], HEX[c & 0xF]});
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.machinemc.cogwheel.properties;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTest {
+
+    public static class Settings implements Configuration {
+
+        private int port = 80;
+
+    }
+
+    private final PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+
+    @Test
+    void completesOnGivenExecutor() throws Exception {
+        Path file = Files.createTempFile("async", ".properties");
+        serializer.save(file, new Settings());
+        Thread[] completedOn = new Thread[1];
+        Executor executor = command -> {
+            Thread thread = new Thread(command, "completion");
+            completedOn[0] = thread;
+            thread.start();
+        };
+        Settings settings = serializer.loadAsync(file, Settings.class, executor).get(10, TimeUnit.SECONDS);
+        assertEquals(80, settings.port);
+        assertEquals("completion", completedOn[0].getName());
+    }
+
+    @Test
+    void rejectedCompletionFailsTheFuture() throws Exception {
+        Path file = Files.createTempFile("async", ".properties");
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("shut down");
+        };
+        CompletableFuture<Boolean> future = serializer.saveAsync(file, new Settings(), rejecting);
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.machinemc.cogwheel.properties;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.ConfigDiff;
+import org.machinemc.cogwheel.config.Configuration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigDiffTest {
+
+    public static class Server implements Configuration {
+
+        private String host = "localhost";
+        private int port = 80;
+
+    }
+
+    public static class Root implements Configuration {
+
+        private String name = "root";
+        private Server server = new Server();
+        private List<Server> servers = new ArrayList<>(List.of(new Server(), new Server()));
+        private List<String> tags = new ArrayList<>(List.of("a", "b"));
+
+    }
+
+    public static class Immutable implements Configuration {
+
+        private List<Server> servers = List.of(new Server());
+        private List<List<Integer>> nested = List.of(new ArrayList<>(List.of(1)));
+        private Map<String, Integer> limits = Map.of("min", 1);
+
+    }
+
+    private final PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+
+    @Test
+    void patchedConfigurationSavesLikeTheCurrentOne() throws Exception {
+        Path file = Files.createTempFile("diff", ".properties");
+        serializer.save(file, new Root());
+        Root previous = serializer.load(file, Root.class);
+        Root current = serializer.load(file, Root.class);
+        current.server.port = 8080;
+        current.servers.get(1).host = "remote";
+        current.servers.add(new Server());
+        current.tags.remove(0);
+
+        ConfigDiff diff = serializer.diff(previous, current);
+        assertFalse(diff.isEmpty());
+        assertTrue(diff.affects("servers"));
+        assertFalse(diff.affects("name"));
+
+        Root patched = diff.applyTo(serializer.load(file, Root.class));
+        assertTrue(serializer.diff(patched, current).isEmpty());
+
+        Path patchedFile = Files.createTempFile("patched", ".properties");
+        Path currentFile = Files.createTempFile("current", ".properties");
+        serializer.save(patchedFile, patched);
+        serializer.save(currentFile, current);
+        assertEquals(Files.readString(currentFile), Files.readString(patchedFile));
+    }
+
+    @Test
+    void unmodifiableCollectionsAreReplacedAndChangedOnce() {
+        Immutable previous = new Immutable();
+        List<Server> servers = previous.servers;
+        List<Integer> nested = previous.nested.getFirst();
+        Immutable current = new Immutable();
+        Server changed = new Server();
+        changed.port = 8080;
+        current.servers = List.of(changed, new Server());
+        current.nested = List.of(new ArrayList<>(List.of(1, 2)), List.of(3));
+        current.limits = Map.of("min", 2, "max", 3);
+
+        serializer.diff(previous, current).applyTo(previous);
+        assertNotSame(servers, previous.servers);
+        assertEquals(1, servers.size());
+        assertEquals(2, previous.servers.size());
+        assertEquals(8080, previous.servers.getFirst().port);
+        assertSame(nested, previous.nested.getFirst());
+        assertEquals(List.of(List.of(1, 2), List.of(3)), previous.nested);
+        assertEquals(Map.of("min", 2, "max", 3), previous.limits);
+        assertTrue(serializer.diff(previous, current).isEmpty());
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.machinemc.cogwheel.properties;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.ConfigWatcher;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.config.LiveConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigWatcherTest {
+
+    public static class Settings implements Configuration {
+
+        private int port = 1000;
+
+    }
+
+    @Test
+    void reloadsWhenOnlyContentChanged() throws Exception {
+        PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+        Path file = Files.createTempDirectory("watcher").resolve("settings.properties");
+        serializer.save(file, new Settings());
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        long size = Files.size(file);
+
+        BlockingQueue<Integer> ports = new LinkedBlockingQueue<>();
+        try (ConfigWatcher watcher = new ConfigWatcher(serializer)) {
+            watcher.watch(file, Settings.class, settings -> ports.add(settings.port));
+            Settings changed = new Settings();
+            changed.port = 2000;
+            serializer.save(file, changed);
+            Files.setLastModifiedTime(file, lastModified);
+            assertEquals(size, Files.size(file));
+            assertEquals(Integer.valueOf(2000), ports.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void changesMadeBeforeWatchingAreDetectedAgainstTheLoadedContent() throws Exception {
+        PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+        Path file = Files.createTempDirectory("watcher").resolve("settings.properties");
+        serializer.save(file, new Settings());
+        LiveConfig<Settings> live = serializer.loadLive(file, Settings.class);
+
+        Settings changed = new Settings();
+        changed.port = 2000;
+        serializer.save(file, changed);
+        try (ConfigWatcher watcher = new ConfigWatcher(serializer)) {
+            BlockingQueue<Integer> ports = new LinkedBlockingQueue<>();
+            live.addListener((previous, current) -> ports.add(((Settings) current.configuration()).port));
+            live.watch(watcher);
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+            assertEquals(Integer.valueOf(2000), ports.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+}
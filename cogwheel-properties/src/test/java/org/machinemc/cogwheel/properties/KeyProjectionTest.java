@@ -0,0 +1,64 @@
+package org.machinemc.cogwheel.properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.config.KeyProjection;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyProjectionTest {
+
+    public static class Port implements Configuration {
+
+        private int port;
+
+    }
+
+    public static class PortOnly implements Configuration {
+
+        private Port server = new Port();
+
+    }
+
+    private final PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void skippedValuesAreNotConverted() {
+        String properties = "name=\\uZZZZ\nserver.port=1\n";
+        assertThrows(RuntimeException.class, () -> serializer.load(new StringReader(properties)));
+        CommentedProperties projected = serializer.load(new StringReader(properties), KeyProjection.of("server.port"));
+        assertEquals(Set.of("server.port"), Set.copyOf(projected.keySet()));
+    }
+
+    @Test
+    void commentsOfSkippedEntriesAreDropped() {
+        String properties = "# name\nname=x\n# port\n\n# of the server\nserver.port=1\n";
+        CommentedProperties projected = serializer.load(new StringReader(properties), KeyProjection.of("server"));
+        assertArrayEquals(new String[]{"port", null, "of the server"}, projected.getComments("server.port"));
+    }
+
+    @Test
+    void flatKeysMatchWholeSegments() {
+        String properties = "tags.0=a\ntags.1=b\ntagsX=c\nserver.port=1\nserver.portX=2\n";
+        CommentedProperties projected = serializer.load(new StringReader(properties), KeyProjection.of("tags", "server.port"));
+        assertEquals(Set.of("tags.0", "tags.1", "server.port"), Set.copyOf(projected.keySet()));
+    }
+
+    @Test
+    void projectionClassIgnoresValuesItDoesNotDeclare() throws Exception {
+        Path file = directory.resolve("config.properties");
+        Files.writeString(file, "server.port=8080\nserver.host.unexpected=section\nname.0=1\n");
+        assertEquals(KeyProjection.of("server.port"), serializer.projectionOf(PortOnly.class));
+        assertEquals(8080, serializer.loadProjection(file, PortOnly.class).server.port);
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.machinemc.cogwheel.properties;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadIntoTest {
+
+    public static class Server implements Configuration {
+
+        private String host = "localhost";
+        private int port = 80;
+
+    }
+
+    public record Limits(int min, int max) implements Configuration {
+    }
+
+    public static class Root implements Configuration {
+
+        private String name = "root";
+        private Server server = new Server();
+        private List<Server> servers = new ArrayList<>(List.of(new Server(), new Server()));
+        private Limits limits = new Limits(1, 2);
+
+    }
+
+    private final PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+
+    private Path save(Root root) throws Exception {
+        Path file = Files.createTempFile("into", ".properties");
+        serializer.save(file, root);
+        return file;
+    }
+
+    @Test
+    void unchangedFileReportsNoChanges() throws Exception {
+        Root root = new Root();
+        List<Server> servers = root.servers;
+        Limits limits = root.limits;
+        assertEquals(List.of(), serializer.loadInto(save(new Root()), root));
+        assertSame(servers, root.servers);
+        assertSame(limits, root.limits);
+    }
+
+    @Test
+    void onlyChangedValuesAreReported() throws Exception {
+        Root changed = new Root();
+        changed.server.port = 8080;
+        changed.servers.get(1).host = "remote";
+        changed.limits = new Limits(1, 3);
+        Root root = new Root();
+        Server server = root.server;
+        assertEquals(List.of("server.port", "servers", "limits"), serializer.loadInto(save(changed), root));
+        assertSame(server, root.server);
+        assertEquals(8080, root.server.port);
+        assertEquals("remote", root.servers.get(1).host);
+        assertEquals(3, root.limits.max());
+    }
+
+    @Test
+    void recordsAreRejected() throws Exception {
+        Path file = Files.createTempFile("into", ".properties");
+        serializer.save(file, new Limits(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> serializer.loadInto(file, new Limits(0, 0)));
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.machinemc.cogwheel.properties;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertiesConfigAdapterTest {
+
+    public static class Root implements Configuration {
+
+        private String text = "plain";
+        private List<String> list = List.of("a", "b");
+        private List<String> emptyList = List.of();
+        private Map<String, Integer> indexed = new LinkedHashMap<>(Map.of("0", 1));
+        private Map<String, Integer> emptyMap = new LinkedHashMap<>();
+
+    }
+
+    public static class Dotted implements Configuration {
+
+        private Map<String, Integer> map = Map.of("a.b", 1);
+
+    }
+
+    private final PropertiesConfigSerializer serializer = PropertiesConfigSerializer.newDefault();
+
+    private Root roundTrip(Root root) {
+        StringWriter writer = new StringWriter();
+        serializer.save(writer, root);
+        return serializer.load(new StringReader(writer.toString()), Root.class);
+    }
+
+    @Test
+    void collectionsRoundTrip() {
+        Root loaded = roundTrip(new Root());
+        assertEquals(List.of("a", "b"), loaded.list);
+        assertEquals(List.of(), loaded.emptyList);
+        assertEquals(Map.of("0", 1), loaded.indexed);
+        assertEquals(Map.of(), loaded.emptyMap);
+    }
+
+    @Test
+    void markerStringsRoundTrip() {
+        for (String text : new String[]{"[]", "{}", "\\[]", "\\\\{}", "\\", "[", "x[]"}) {
+            Root root = new Root();
+            root.text = text;
+            root.list = List.of(text);
+            Root loaded = roundTrip(root);
+            assertEquals(text, loaded.text);
+            assertEquals(List.of(text), loaded.list);
+        }
+    }
+
+    @Test
+    void dottedMapKeysAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> serializer.save(new StringWriter(), new Dotted()));
+    }
+
+    @Test
+    void sectionCommentsPrecedeEntryComments() {
+        CommentedProperties properties = new CommentedProperties();
+        properties.put("section.value", "1");
+        properties.setComments("section.value", new String[]{"value"});
+        PropertiesConfigAdapter adapter = new PropertiesConfigAdapter();
+        adapter.load(properties);
+        adapter.setComments("section", null);
+        assertArrayEquals(new String[]{"value"}, properties.getComments("section.value"));
+        adapter.setComments("section", new String[]{"section"});
+        assertArrayEquals(new String[]{"section", "value"}, properties.getComments("section.value"));
+    }
+
+}
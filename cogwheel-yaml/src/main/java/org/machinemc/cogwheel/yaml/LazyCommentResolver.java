@@ -0,0 +1,64 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.machinemc.cogwheel.yaml.wrapper.YamlArray;
+import org.machinemc.cogwheel.yaml.wrapper.YamlElement;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.api.lowlevel.Compose;
+import org.snakeyaml.engine.v2.nodes.*;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Recovers the comments of a document loaded with {@link YamlConfigProperties.CommentMode#LAZY}.
+ * <p>
+ * The source is only composed again (with comment parsing enabled) once the comments are
+ * actually needed, which is usually when the loaded object is saved back.
+ */
+final class LazyCommentResolver implements Consumer<YamlObject> {
+
+    private final String source;
+    private final LoadSettings settings;
+
+    /**
+     * @param source source of the document
+     * @param settings settings the document was loaded with, comment parsing enabled
+     */
+    LazyCommentResolver(String source, LoadSettings settings) {
+        this.source = source;
+        this.settings = settings;
+    }
+
+    @Override
+    public void accept(YamlObject yamlObject) {
+        new Compose(settings).composeString(source).ifPresent(node -> {
+            if (yamlObject.getComments().isEmpty() && yamlObject.getInlineComment().isEmpty())
+                YamlElementConstructor.applyComments(yamlObject, node);
+            apply(yamlObject, node);
+        });
+    }
+
+    private static void apply(YamlElement element, Node node) {
+        if (node instanceof MappingNode mappingNode && element instanceof YamlObject yamlObject) {
+            for (NodeTuple tuple : mappingNode.getValue()) {
+                if (!(tuple.getKeyNode() instanceof ScalarNode keyNode)) continue;
+                String key = keyNode.getValue();
+                YamlElement value = yamlObject.get(key);
+                if (value == null) continue;
+                if (yamlObject.getComments(key) == null && yamlObject.getInlineComment(key) == null)
+                    YamlElementConstructor.applyComments(yamlObject, key, tuple);
+                apply(value, tuple.getValueNode());
+            }
+        } else if (node instanceof SequenceNode sequenceNode && element instanceof YamlArray yamlArray) {
+            List<Node> nodes = sequenceNode.getValue();
+            int size = Math.min(nodes.size(), yamlArray.size());
+            for (int i = 0; i < size; i++) {
+                if (yamlArray.getComments(i) == null && yamlArray.getInlineComment(i) == null)
+                    YamlElementConstructor.applyComments(yamlArray, i, nodes.get(i));
+                apply(yamlArray.get(i), nodes.get(i));
+            }
+        }
+    }
+
+}
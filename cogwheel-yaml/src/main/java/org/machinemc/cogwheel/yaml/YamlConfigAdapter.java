@@ -100,20 +100,18 @@ public class YamlConfigAdapter extends ConfigAdapter<YamlObject> {
 
     @Override
     public void setComments(String key, @Nullable String[] comments) {
-        YamlElement element = yamlObject.get(key);
-        if (element == null) return;
+        if (!yamlObject.has(key)) return;
         for (int i = 0; i < comments.length; i++) {
             if (comments[i] == null) continue;
             comments[i] = " " + comments[i];
         }
-        element.setComments(comments);
+        yamlObject.setComments(key, comments);
     }
 
     @Override
     public void setInlineComment(String key, String comment) {
-        YamlElement element = yamlObject.get(key);
-        if (element == null) return;
-        element.setInlineComment(" " + comment);
+        if (!yamlObject.has(key)) return;
+        yamlObject.setInlineComment(key, " " + comment);
     }
 
     @Override
@@ -1,37 +1,145 @@
 package org.machinemc.cogwheel.yaml;
 
 import org.machinemc.cogwheel.config.ConfigProperties;
+import org.machinemc.cogwheel.util.ObjectPool;
 import org.snakeyaml.engine.v2.api.Dump;
 import org.snakeyaml.engine.v2.api.DumpSettings;
 import org.snakeyaml.engine.v2.api.Load;
 import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.api.LoadSettingsBuilder;
 import org.snakeyaml.engine.v2.common.FlowStyle;
 
+import java.util.function.UnaryOperator;
+
 public class YamlConfigProperties extends ConfigProperties {
 
-    Dump dump;
-    Load load;
+    private final DumpSettings dumpSettings = DumpSettings.builder()
+            .setDefaultFlowStyle(FlowStyle.BLOCK)
+            .setIndent(2)
+            .setDumpComments(true)
+            .build();
+    ObjectPool<Dump> dumps = new ObjectPool<>(this::newDump);
+    ObjectPool<Load> loads = newLoads();
+    CommentMode commentMode = CommentMode.EAGER;
+    SaveMode saveMode = SaveMode.EMIT;
+    UnaryOperator<LoadSettingsBuilder> loadSettings = UnaryOperator.identity();
 
-    {
-        DumpSettings dumpSettings = DumpSettings.builder()
-                .setDefaultFlowStyle(FlowStyle.BLOCK)
-                .setIndent(2)
-                .setDumpComments(true)
-                .build();
-        dump = new Dump(dumpSettings, new YamlElementRepresenter(dumpSettings));
+    /**
+     * Snakeyaml dumpers can not be used concurrently, each thread has to borrow its own from this pool.
+     *
+     * @return pool of dumpers used to save the configurations
+     */
+    public ObjectPool<Dump> dumps() {
+        return dumps;
+    }
 
-        LoadSettings loadSettings = LoadSettings.builder()
-                .setParseComments(true)
-                .build();
-        load = new Load(loadSettings, new YamlElementConstructor(loadSettings));
+    /**
+     * Snakeyaml loaders can not be used concurrently, each thread has to borrow its own from this pool.
+     *
+     * @return pool of loaders used to load the configurations
+     */
+    public ObjectPool<Load> loads() {
+        return loads;
     }
 
+    /**
+     * @return new dumper with the default dump settings
+     * @deprecated the dumpers used by the serializer are pooled, borrow one from {@link #dumps()} instead
+     */
+    @Deprecated
     public Dump dump() {
-        return dump;
+        return newDump();
     }
 
+    /**
+     * @return new loader with the configured load settings
+     * @deprecated the loaders used by the serializer are pooled, borrow one from {@link #loads()} instead
+     */
+    @Deprecated
     public Load load() {
-        return load;
+        return newLoad();
+    }
+
+    public CommentMode commentMode() {
+        return commentMode;
+    }
+
+    public SaveMode saveMode() {
+        return saveMode;
+    }
+
+    /**
+     * Settings used to parse the documents, also when comments are recovered
+     * with {@link CommentMode#LAZY}, see {@link YamlConfigSerializer.BuilderImpl#loadSettings(UnaryOperator)}.
+     *
+     * @param parseComments whether comments are parsed
+     * @return new load settings
+     */
+    public LoadSettings loadSettings(boolean parseComments) {
+        return loadSettings.apply(LoadSettings.builder())
+                .setParseComments(parseComments)
+                .build();
+    }
+
+    ObjectPool<Load> newLoads() {
+        return new ObjectPool<>(this::newLoad);
+    }
+
+    private Dump newDump() {
+        return new Dump(dumpSettings, new YamlElementRepresenter(dumpSettings));
+    }
+
+    private Load newLoad() {
+        LoadSettings settings = loadSettings(commentMode == CommentMode.EAGER);
+        return new Load(settings, new YamlElementConstructor(settings));
+    }
+
+    /**
+     * Controls how comments are handled when a YAML document is loaded.
+     */
+    public enum CommentMode {
+
+        /**
+         * Comments are parsed and attached to the loaded elements right away.
+         */
+        EAGER,
+
+        /**
+         * Comments are skipped while loading and only recovered from the source
+         * once they are needed, that is when the loaded {@link org.machinemc.cogwheel.yaml.wrapper.YamlObject}
+         * itself is saved back or {@link org.machinemc.cogwheel.yaml.wrapper.YamlObject#resolveComments()}
+         * is called on it. Comments set on the object before that are kept.
+         * <p>
+         * Configurations loaded as classes do not keep the comments of the file, they are saved with
+         * the comments of their annotations, so for them this mode behaves the same as {@link #NONE}.
+         */
+        LAZY,
+
+        /**
+         * Comments are never parsed, suitable for read-only loads.
+         */
+        NONE
+
+    }
+
+    /**
+     * Controls how configurations are saved to files.
+     */
+    public enum SaveMode {
+
+        /**
+         * The whole document is emitted each time it is saved.
+         */
+        EMIT,
+
+        /**
+         * The source of each file is kept from the last load or save, saving then only rewrites
+         * the scalars whose values changed and keeps everything else, including formatting
+         * and comments that were edited by hand. The whole document is emitted if it can not be
+         * patched, e.g. because keys were added or removed or the file was modified since.
+         */
+        PATCH
+
     }
 
 }
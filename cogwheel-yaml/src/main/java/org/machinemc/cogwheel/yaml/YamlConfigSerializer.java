@@ -3,48 +3,196 @@ package org.machinemc.cogwheel.yaml;
 import org.machinemc.cogwheel.config.ConfigAdapter;
 import org.machinemc.cogwheel.config.ConfigProperties;
 import org.machinemc.cogwheel.config.ConfigSerializer;
-import org.machinemc.cogwheel.util.FileUtils;
+import org.machinemc.cogwheel.config.KeyProjection;
+import org.machinemc.cogwheel.util.LruCache;
+import org.machinemc.cogwheel.util.ObjectPool;
 import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
 import org.snakeyaml.engine.v2.api.Dump;
 import org.snakeyaml.engine.v2.api.Load;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.api.LoadSettingsBuilder;
+import org.snakeyaml.engine.v2.api.lowlevel.Compose;
+import org.snakeyaml.engine.v2.nodes.MappingNode;
+import org.snakeyaml.engine.v2.nodes.Node;
+import org.snakeyaml.engine.v2.nodes.NodeTuple;
+import org.snakeyaml.engine.v2.nodes.ScalarNode;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class YamlConfigSerializer extends ConfigSerializer<YamlObject> {
 
+    /**
+     * Maximum number of files whose sources are kept for {@link YamlConfigProperties.SaveMode#PATCH},
+     * files whose sources were evicted are emitted as a whole on their next save.
+     */
+    private static final int MAX_SOURCES = 64;
+
+    /**
+     * Sources of the files loaded or saved with {@link YamlConfigProperties.SaveMode#PATCH},
+     * with the size and modification time the files had at that moment.
+     */
+    private final LruCache<Path, SourceFile> sources = new LruCache<>(MAX_SOURCES);
+
+    /**
+     * Sources rendered for the files that are being saved.
+     */
+    private final Map<Path, YamlSource> rendered = new ConcurrentHashMap<>();
+
     protected YamlConfigSerializer(ConfigProperties properties) {
         super(properties);
     }
 
+    /**
+     * Loads the file, with {@link YamlConfigProperties.SaveMode#PATCH} its source is kept for the next save.
+     * All other loads of files, such as {@link #load(Path, Class)}, {@link #loadInto(Path, org.machinemc.cogwheel.config.Configuration)},
+     * {@link #loadAsync(Path, Class)} and {@link #loadLive(Path, Class)}, go through this method.
+     */
+    @Override
+    public YamlObject load(Path path) {
+        if (!isPatching()) return super.load(path);
+        try {
+            Path absolute = path.toAbsolutePath().normalize();
+            BasicFileAttributes attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+            return loadSource(absolute, Files.readString(absolute), attributes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    protected YamlObject load(Path path, byte[] bytes, BasicFileAttributes attributes) {
+        if (!isPatching()) return super.load(path, bytes, attributes);
+        return loadSource(path, new String(bytes, StandardCharsets.UTF_8), attributes);
+    }
+
+    private YamlObject loadSource(Path path, String yaml, BasicFileAttributes attributes) {
+        sources.put(path, new SourceFile(newSource(yaml), attributes.size(), attributes.lastModifiedTime()));
+        return load(new StringReader(yaml));
+    }
+
+    /**
+     * Saves the configuration, the rendered source is dropped if the file is not written
+     * because it already has the same content.
+     */
+    @Override
+    protected boolean save(Path path, YamlObject yamlObject) {
+        try {
+            return super.save(path, yamlObject);
+        } finally {
+            rendered.remove(path.toAbsolutePath().normalize());
+        }
+    }
+
+    @Override
+    protected byte[] render(Path path, YamlObject yamlObject) throws IOException {
+        if (!isPatching()) return super.render(path, yamlObject);
+        SourceFile file = sources.get(path);
+        YamlSource source = file != null && file.isCurrent(path) ? file.source().patch(yamlObject) : null;
+        if (source == null) {
+            StringWriter writer = new StringWriter();
+            write(writer, yamlObject);
+            source = newSource(writer.toString());
+        }
+        rendered.put(path, source);
+        return source.text().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void written(Path path, BasicFileAttributes attributes) {
+        YamlSource source = rendered.remove(path);
+        if (source != null)
+            sources.put(path, new SourceFile(source, attributes.size(), attributes.lastModifiedTime()));
+    }
+
+    private boolean isPatching() {
+        return getProperties(YamlConfigProperties.class).saveMode() == YamlConfigProperties.SaveMode.PATCH;
+    }
+
+    private YamlSource newSource(String yaml) {
+        return new YamlSource(yaml, getProperties(YamlConfigProperties.class).loadSettings(false));
+    }
+
     @Override
     protected ConfigAdapter<YamlObject> newAdapter() {
         return new YamlConfigAdapter();
     }
 
     @Override
-    protected void save(File file, YamlObject yamlObject) {
-        FileUtils.createIfAbsent(file);
-        try (FileWriter writer = new FileWriter(file)) {
-            Dump dump = getProperties(YamlConfigProperties.class).dump();
-            writer.write(dump.dumpToString(yamlObject));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    protected void write(Writer writer, YamlObject yamlObject) throws IOException {
+        ObjectPool<Dump> dumps = getProperties(YamlConfigProperties.class).dumps();
+        String yaml = dumps.apply(dump -> dump.dumpToString(yamlObject));
+        writer.write(yaml);
+    }
+
+    @Override
+    protected YamlObject read(Reader reader) throws IOException {
+        YamlConfigProperties properties = getProperties(YamlConfigProperties.class);
+        ObjectPool<Load> loads = properties.loads();
+        if (properties.commentMode() == YamlConfigProperties.CommentMode.LAZY) {
+            StringWriter source = new StringWriter();
+            reader.transferTo(source);
+            String yaml = source.toString();
+            YamlObject yamlObject = (YamlObject) loads.apply(load -> load.loadFromString(yaml));
+            if (yamlObject != null) yamlObject.deferComments(new LazyCommentResolver(yaml, properties.loadSettings(true)));
+            return yamlObject;
         }
+        return (YamlObject) loads.apply(load -> load.loadFromReader(reader));
     }
 
+    /**
+     * Composes the document and leaves out the entries outside of the projection before it is constructed,
+     * so only the projected values are built. Comments are not parsed, the settings configured
+     * with {@link BuilderImpl#loadSettings(UnaryOperator)} are used.
+     */
     @Override
-    public YamlObject load(File file) {
-        try (FileReader reader = new FileReader(file)) {
-            Load load = getProperties(YamlConfigProperties.class).load();
-            return (YamlObject) load.loadFromReader(reader);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    protected YamlObject read(Reader reader, KeyProjection projection) throws IOException {
+        if (projection.includesAll()) return read(reader);
+        LoadSettings settings = getProperties(YamlConfigProperties.class).loadSettings(false);
+        Optional<Node> document = new Compose(settings).composeReader(reader);
+        document.ifPresent(node -> prune(node, projection));
+        return (YamlObject) new YamlElementConstructor(settings).constructSingleDocument(document);
+    }
+
+    private static void prune(Node node, KeyProjection projection) {
+        // anchored mappings may be referenced by aliases under other keys, they are kept whole
+        if (projection.includesAll() || !(node instanceof MappingNode mappingNode) || node.getAnchor().isPresent())
+            return;
+        Iterator<NodeTuple> iterator = mappingNode.getValue().iterator();
+        while (iterator.hasNext()) {
+            NodeTuple tuple = iterator.next();
+            KeyProjection child = tuple.getKeyNode() instanceof ScalarNode keyNode ? projection.child(keyNode.getValue()) : null;
+            if (child == null) iterator.remove();
+            else prune(tuple.getValueNode(), child);
         }
     }
 
+    private record SourceFile(YamlSource source, long size, FileTime lastModified) {
+
+        /**
+         * @return whether the file was not modified since the source was read or written
+         */
+        boolean isCurrent(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+    }
+
     public static YamlConfigSerializer newDefault() {
         return builder().build();
     }
@@ -55,17 +203,86 @@ public class YamlConfigSerializer extends ConfigSerializer<YamlObject> {
 
     public static class BuilderImpl extends Builder<YamlConfigSerializer, YamlConfigProperties, BuilderImpl> {
 
+        private boolean customLoads;
+
         protected BuilderImpl(YamlConfigProperties properties) {
             super(properties);
         }
 
+        /**
+         * Uses a single dumper for all saves. As the dumper can not be used concurrently,
+         * saves from multiple threads will wait for each other, prefer {@link #dump(Supplier)}.
+         * The dumper must not be shared with other serializers or used outside of this one,
+         * it is also reused after a failed call, when a pooled dumper would be dropped.
+         *
+         * @param dump dumper to use
+         * @return this
+         */
         public BuilderImpl dump(Dump dump) {
-            properties.dump = dump;
+            properties.dumps = new ObjectPool<>(() -> dump, 1);
             return getThis();
         }
 
+        public BuilderImpl dump(Supplier<Dump> dumpFactory) {
+            properties.dumps = new ObjectPool<>(dumpFactory);
+            return getThis();
+        }
+
+        /**
+         * Uses a single loader for all loads. As the loader can not be used concurrently,
+         * loads from multiple threads will wait for each other, prefer {@link #load(Supplier)}.
+         * The loader must not be shared with other serializers or used outside of this one,
+         * it is also reused after a failed call, when a pooled loader would be dropped.
+         *
+         * @param load loader to use
+         * @return this
+         */
         public BuilderImpl load(Load load) {
-            properties.load = load;
+            properties.loads = new ObjectPool<>(() -> load, 1);
+            customLoads = true;
+            return getThis();
+        }
+
+        /**
+         * Uses loaders created by the factory. Their settings are not known to the serializer,
+         * comments recovered with {@link YamlConfigProperties.CommentMode#LAZY} and sources kept
+         * with {@link YamlConfigProperties.SaveMode#PATCH} are parsed with the settings
+         * configured with {@link #loadSettings(UnaryOperator)}.
+         *
+         * @param loadFactory factory of the loaders
+         * @return this
+         */
+        public BuilderImpl load(Supplier<Load> loadFactory) {
+            properties.loads = new ObjectPool<>(loadFactory);
+            customLoads = true;
+            return getThis();
+        }
+
+        /**
+         * Configures the settings of the loaders, comment parsing is set according to the comment mode.
+         *
+         * @param loadSettings function configuring the settings
+         * @return this
+         */
+        public BuilderImpl loadSettings(UnaryOperator<LoadSettingsBuilder> loadSettings) {
+            properties.loadSettings = loadSettings;
+            return getThis();
+        }
+
+        /**
+         * Sets how comments are parsed, the mode applies to loaders configured with
+         * {@link #load(Load)} or {@link #load(Supplier)} only if they are set up accordingly.
+         *
+         * @param commentMode comment mode
+         * @return this
+         */
+        public BuilderImpl commentMode(YamlConfigProperties.CommentMode commentMode) {
+            properties.commentMode = commentMode;
+            return getThis();
+        }
+
+        public BuilderImpl saveMode(YamlConfigProperties.SaveMode saveMode) {
+            properties.saveMode = saveMode;
             return getThis();
         }
 
@@ -76,6 +293,7 @@ public class YamlConfigSerializer extends ConfigSerializer<YamlObject> {
 
         @Override
         public YamlConfigSerializer build() {
+            if (!customLoads) properties.loads = properties.newLoads();
             return new YamlConfigSerializer(properties);
         }
 
@@ -1,5 +1,6 @@
 package org.machinemc.cogwheel.yaml;
 
+import org.jetbrains.annotations.Nullable;
 import org.machinemc.cogwheel.util.NumberUtils;
 import org.machinemc.cogwheel.yaml.wrapper.*;
 import org.snakeyaml.engine.v2.api.ConstructNode;
@@ -10,79 +11,93 @@ import org.snakeyaml.engine.v2.constructor.BaseConstructor;
 import org.snakeyaml.engine.v2.exceptions.*;
 import org.snakeyaml.engine.v2.nodes.*;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.util.*;
 
 public class YamlElementConstructor extends BaseConstructor {
 
+    // Mappings up to this size look for duplicate keys by scanning instead of hashing
+    private static final int LINEAR_SCAN_THRESHOLD = 8;
+
     public YamlElementConstructor(LoadSettings settings) {
         super(settings);
 
-        tagConstructors.put(Tag.NULL, node -> {
-            YamlElement element = new YamlNull();
-            if (settings.getParseComments())
-                applyComments(element, node);
-            return element;
-        });
-        tagConstructors.put(Tag.BOOL, node -> {
-            Boolean value = Boolean.valueOf(((ScalarNode) node).getValue());
-            YamlElement element = new YamlPrimitive(value);
-            if (settings.getParseComments())
-                applyComments(element, node);
-            return element;
-        });
-        tagConstructors.put(Tag.STR, node -> {
-            YamlElement element = new YamlPrimitive(((ScalarNode) node).getValue());
-            if (settings.getParseComments())
-                applyComments(element, node);
-            return element;
-        });
-        tagConstructors.put(Tag.INT, node -> {
-            BigInteger number = NumberUtils.parseInteger(((ScalarNode) node).getValue());
-            YamlElement element = new YamlPrimitive(number);
-            if (settings.getParseComments())
-                applyComments(element, node);
-            return element;
-        });
-        tagConstructors.put(Tag.FLOAT, node -> {
-            BigDecimal number = NumberUtils.parseDecimal(((ScalarNode) node).getValue());
-            YamlElement element = new YamlPrimitive(number);
-            if (settings.getParseComments())
-                applyComments(element, node);
-            return element;
-        });
+        tagConstructors.put(Tag.NULL, node -> toElement((ScalarNode) node));
+        tagConstructors.put(Tag.BOOL, node -> toElement((ScalarNode) node));
+        tagConstructors.put(Tag.STR, node -> toElement((ScalarNode) node));
+        tagConstructors.put(Tag.INT, node -> toElement((ScalarNode) node));
+        tagConstructors.put(Tag.FLOAT, node -> toElement((ScalarNode) node));
         tagConstructors.put(Tag.SEQ, new ConstructYamlSeq());
         tagConstructors.put(Tag.MAP, new ConstructYamlMap());
     }
 
+    /**
+     * @param node scalar node
+     * @return element of the scalar, {@code null} if its tag is not one of the standard scalar tags
+     */
+    static @Nullable YamlElement toElement(ScalarNode node) {
+        Tag tag = node.getTag();
+        if (Tag.NULL.equals(tag)) return new YamlNull();
+        if (Tag.BOOL.equals(tag)) return new YamlPrimitive(Boolean.parseBoolean(node.getValue()));
+        if (Tag.STR.equals(tag)) return new YamlPrimitive(node.getValue());
+        if (Tag.INT.equals(tag)) return new YamlPrimitive(NumberUtils.parseCompactInteger(node.getValue()));
+        if (Tag.FLOAT.equals(tag)) return new YamlPrimitive(NumberUtils.parseCompactDecimal(node.getValue()));
+        return null;
+    }
+
+    @Override
+    public Object constructSingleDocument(Optional<Node> optionalNode) {
+        Object document = super.constructSingleDocument(optionalNode);
+        if (settings.getParseComments() && document instanceof YamlElement element && optionalNode.isPresent())
+            applyComments(element, optionalNode.get());
+        return document;
+    }
+
     protected void flattenMapping(MappingNode node) {
         processDuplicateKeys(node);
     }
 
     protected void processDuplicateKeys(MappingNode node) {
         List<NodeTuple> nodeValue = node.getValue();
-        Map<Object, Integer> keys = new HashMap<>(nodeValue.size());
-        TreeSet<Integer> toRemove = new TreeSet<>();
-        int i = 0;
-        for (NodeTuple tuple : nodeValue) {
-            Node keyNode = tuple.getKeyNode();
-            Object key = constructObject(keyNode);
-            Integer prevIndex = keys.put(key, i);
-            if (prevIndex != null) {
-                if (!settings.getAllowDuplicateKeys()) {
-                    throw new DuplicateKeyException(node.getStartMark(), key,
-                            tuple.getKeyNode().getStartMark());
-                }
-                toRemove.add(prevIndex);
+        int size = nodeValue.size();
+        if (size < 2) return;
+        // Plain string keys are compared by their raw value, other keys have to be constructed
+        Map<String, Integer> stringKeys = size > LINEAR_SCAN_THRESHOLD ? HashMap.newHashMap(size) : null;
+        Map<Object, Integer> objectKeys = null;
+        BitSet toRemove = null;
+        for (int i = 0; i < size; i++) {
+            Node keyNode = nodeValue.get(i).getKeyNode();
+            Integer prevIndex;
+            if (isStringKey(keyNode)) {
+                String key = ((ScalarNode) keyNode).getValue();
+                prevIndex = stringKeys != null ? stringKeys.put(key, i) : findStringKey(nodeValue, i, key);
+            } else {
+                if (objectKeys == null) objectKeys = new HashMap<>();
+                prevIndex = objectKeys.put(constructObject(keyNode), i);
             }
-            i = i + 1;
+            if (prevIndex == null) continue;
+            if (!settings.getAllowDuplicateKeys()) {
+                throw new DuplicateKeyException(node.getStartMark(), constructObject(keyNode),
+                        keyNode.getStartMark());
+            }
+            if (toRemove == null) toRemove = new BitSet(size);
+            toRemove.set(prevIndex);
         }
 
-        Iterator<Integer> indices2remove = toRemove.descendingIterator();
-        while (indices2remove.hasNext()) {
-            nodeValue.remove(indices2remove.next().intValue());
+        if (toRemove == null) return;
+        for (int i = toRemove.previousSetBit(size - 1); i >= 0; i = toRemove.previousSetBit(i - 1))
+            nodeValue.remove(i);
+    }
+
+    private static boolean isStringKey(Node keyNode) {
+        return keyNode instanceof ScalarNode && Tag.STR.equals(keyNode.getTag());
+    }
+
+    private static Integer findStringKey(List<NodeTuple> nodeValue, int before, String key) {
+        for (int i = before - 1; i >= 0; i--) {
+            Node keyNode = nodeValue.get(i).getKeyNode();
+            if (isStringKey(keyNode) && key.equals(((ScalarNode) keyNode).getValue())) return i;
         }
+        return null;
     }
 
     @Override
@@ -97,14 +112,15 @@ public class YamlElementConstructor extends BaseConstructor {
         @SuppressWarnings("unchecked")
         public Object construct(Node node) {
             SequenceNode seqNode = (SequenceNode) node;
-            YamlElement element;
             if (node.isRecursive())
-                element = new YamlArray((List<YamlElement>) (List<?>) createEmptyListForNode(seqNode));
-            else
-                element = new YamlArray((List<YamlElement>) (List<?>) constructSequence(seqNode));
-            if (settings.getParseComments())
-                applyComments(element, node);
-            return element;
+                return new YamlArray((List<YamlElement>) (List<?>) createEmptyListForNode(seqNode));
+            YamlArray yamlArray = new YamlArray((List<YamlElement>) (List<?>) constructSequence(seqNode));
+            if (settings.getParseComments()) {
+                List<Node> items = seqNode.getValue();
+                for (int i = 0; i < items.size(); i++)
+                    applyComments(yamlArray, i, items.get(i));
+            }
+            return yamlArray;
         }
 
         @Override
@@ -123,23 +139,20 @@ public class YamlElementConstructor extends BaseConstructor {
         @Override
         public Object construct(Node node) {
             MappingNode mappingNode = (MappingNode) node;
-            YamlObject yamlObject = new YamlObject();
             Map<?, ?> map;
             if (node.isRecursive()) {
                 map = createEmptyMapFor(mappingNode);
             } else {
                 map = constructMapping(mappingNode);
             }
-            map.forEach((key, value) -> {
-                YamlPrimitive yamlKey = (YamlPrimitive) key;
-                YamlElement yamlValue = (YamlElement) value;
-                yamlValue.setComments(yamlKey.getComments().stream()
-                        .map(commentLine -> commentLine.getCommentType() == CommentType.BLANK_LINE ? null : commentLine.getValue())
-                        .toArray(String[]::new));
-                yamlObject.add(yamlKey.getAsString(), yamlValue);
-            });
-            if (settings.getParseComments())
-                applyComments(yamlObject, node);
+            YamlObject yamlObject = new YamlObject(map.size());
+            map.forEach((key, value) -> yamlObject.add(((YamlPrimitive) key).getAsString(), (YamlElement) value));
+            if (settings.getParseComments()) {
+                for (NodeTuple tuple : mappingNode.getValue()) {
+                    String key = ((YamlElement) constructObject(tuple.getKeyNode())).getAsString();
+                    applyComments(yamlObject, key, tuple);
+                }
+            }
             return yamlObject;
         }
 
@@ -155,21 +168,58 @@ public class YamlElementConstructor extends BaseConstructor {
 
     }
 
-    private void applyComments(YamlElement element, Node node) {
-        applyBlockComments(element, node);
-        applyInlineComments(element, node);
+    /**
+     * Applies the comments of a mapping entry to the member of the object.
+     * Block comments are taken from the key, inline comments from the value.
+     *
+     * @param yamlObject object containing the member
+     * @param key name of the member
+     * @param tuple mapping entry of the member
+     */
+    static void applyComments(YamlObject yamlObject, String key, NodeTuple tuple) {
+        List<CommentLine> blockComments = tuple.getKeyNode().getBlockComments();
+        if (blockComments != null && !blockComments.isEmpty())
+            yamlObject.setComments(key, toComments(blockComments));
+        List<CommentLine> inlineComments = tuple.getValueNode().getInLineComments();
+        if (inlineComments != null && !inlineComments.isEmpty())
+            yamlObject.setInlineComment(key, inlineComments.getFirst().getValue());
     }
 
-    private void applyBlockComments(YamlElement element, Node node) {
-        if (node.getBlockComments() == null || node.getBlockComments().isEmpty()) return;
-        element.setComments(node.getBlockComments().stream()
-                .map(commentLine -> commentLine.getCommentType() == CommentType.BLANK_LINE ? null : commentLine.getValue())
-                .toArray(String[]::new));
+    /**
+     * Applies the comments of a sequence item to the item of the array.
+     *
+     * @param yamlArray array containing the item
+     * @param index index of the item
+     * @param node node of the item
+     */
+    static void applyComments(YamlArray yamlArray, int index, Node node) {
+        List<CommentLine> blockComments = node.getBlockComments();
+        if (blockComments != null && !blockComments.isEmpty())
+            yamlArray.setComments(index, toComments(blockComments));
+        List<CommentLine> inlineComments = node.getInLineComments();
+        if (inlineComments != null && !inlineComments.isEmpty())
+            yamlArray.setInlineComment(index, inlineComments.getFirst().getValue());
     }
 
-    private void applyInlineComments(YamlElement element, Node node) {
-        if (node.getInLineComments() == null || node.getInLineComments().isEmpty()) return;
-        element.setInlineComment(node.getInLineComments().stream().map(CommentLine::getValue).findFirst().orElseThrow());
+    /**
+     * Applies the comments of the root node to the document.
+     *
+     * @param element the document
+     * @param node root node of the document
+     */
+    static void applyComments(YamlElement element, Node node) {
+        List<CommentLine> blockComments = node.getBlockComments();
+        if (blockComments != null && !blockComments.isEmpty())
+            element.setComments(toComments(blockComments));
+        List<CommentLine> inlineComments = node.getInLineComments();
+        if (inlineComments != null && !inlineComments.isEmpty())
+            element.setInlineComment(inlineComments.getFirst().getValue());
+    }
+
+    static String[] toComments(List<CommentLine> commentLines) {
+        return commentLines.stream()
+                .map(commentLine -> commentLine.getCommentType() == CommentType.BLANK_LINE ? null : commentLine.getValue())
+                .toArray(String[]::new);
     }
 
 }
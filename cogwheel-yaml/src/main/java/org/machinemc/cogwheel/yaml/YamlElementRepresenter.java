@@ -1,7 +1,10 @@
 package org.machinemc.cogwheel.yaml;
 
+import org.jetbrains.annotations.Nullable;
 import org.machinemc.cogwheel.yaml.wrapper.*;
 import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.comments.CommentLine;
+import org.snakeyaml.engine.v2.comments.CommentType;
 import org.snakeyaml.engine.v2.common.FlowStyle;
 import org.snakeyaml.engine.v2.common.NonPrintableStyle;
 import org.snakeyaml.engine.v2.common.ScalarStyle;
@@ -9,6 +12,7 @@ import org.snakeyaml.engine.v2.exceptions.YamlEngineException;
 import org.snakeyaml.engine.v2.nodes.MappingNode;
 import org.snakeyaml.engine.v2.nodes.Node;
 import org.snakeyaml.engine.v2.nodes.ScalarNode;
+import org.snakeyaml.engine.v2.nodes.SequenceNode;
 import org.snakeyaml.engine.v2.nodes.Tag;
 import org.snakeyaml.engine.v2.representer.BaseRepresenter;
 import org.snakeyaml.engine.v2.scanner.StreamReader;
@@ -23,6 +27,14 @@ public class YamlElementRepresenter extends BaseRepresenter {
 
     public static final Pattern MULTILINE_PATTERN = Pattern.compile("[\n\u0085]");
 
+    private static final int MULTILINE = 0x01, NON_PRINTABLE = 0x02, MALFORMED = 0x04;
+
+    // Short strings are often repeated (keys, enum constants), their classification is cached
+    private static final int CACHE_SIZE = 256, MAX_CACHED_LENGTH = 64;
+
+    private final String[] cachedValues = new String[CACHE_SIZE];
+    private final byte[] cachedFlags = new byte[CACHE_SIZE];
+
     protected Map<Class<?>, Tag> classTags;
 
     protected DumpSettings settings;
@@ -55,32 +67,29 @@ public class YamlElementRepresenter extends BaseRepresenter {
                 default -> throw new IllegalStateException("Unexpected value: " + element.asRawObject());
             };
 
-            ScalarStyle style = ScalarStyle.PLAIN;
-
-            String value = element.getAsString();
-
-            if (settings.getNonPrintableStyle() == NonPrintableStyle.BINARY && !StreamReader.isPrintable(value)) {
-                tag = Tag.BINARY;
-                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
-                final String checkValue = new String(bytes, StandardCharsets.UTF_8);
-                if (!checkValue.equals(value)) throw new YamlEngineException("invalid string value has occurred");
-                value = Base64.getEncoder().encodeToString(bytes);
-                style = ScalarStyle.LITERAL;
-            }
-
-            if (defaultScalarStyle == ScalarStyle.PLAIN && MULTILINE_PATTERN.matcher(value).find())
-                style = ScalarStyle.LITERAL;
-
-            return representScalar(tag, value, style);
+            // non-finite numbers are written in their YAML forms, .inf, -.inf and .nan
+            String value = tag == Tag.FLOAT ? YamlSource.toScalar(element) : element.getAsString();
+            return representScalar(tag, value, element.isString());
         });
 
         representers.put(YamlArray.class, data -> {
             YamlArray element = (YamlArray) data;
-            return representSequence(Tag.SEQ, element, settings.getDefaultFlowStyle());
+            SequenceNode node = (SequenceNode) representSequence(Tag.SEQ, element, settings.getDefaultFlowStyle());
+            if (!settings.getDumpComments())
+                return node;
+
+            List<Node> items = node.getValue();
+            for (int i = 0; i < items.size(); i++) {
+                Node item = items.get(i);
+                applyComments(item, item, element.getComments(i), element.getInlineComment(i), element.get(i));
+            }
+            return node;
         });
 
         representers.put(YamlObject.class, data -> {
             YamlObject yaml = (YamlObject) data;
+            if (settings.getDumpComments())
+                yaml.resolveComments();
             MappingNode node = (MappingNode) representMapping(
                     Tag.MAP,
                     yaml.asMap(),
@@ -92,35 +101,152 @@ public class YamlElementRepresenter extends BaseRepresenter {
 
             node.getValue().forEach(nodeTuple -> {
                 if (!(nodeTuple.getKeyNode() instanceof ScalarNode keyNode)) return;
-                YamlElement element = yaml.get(keyNode.getValue());
-                if (element == null) return;
-                keyNode.setBlockComments(element.getComments());
-                nodeTuple.getValueNode().setInLineComments(element.getInlineComment());
+                String key = keyNode.getValue();
+                applyComments(keyNode, nodeTuple.getValueNode(), yaml.getComments(key), yaml.getInlineComment(key), yaml.get(key));
             });
 
             return node;
         });
 
-        representers.put(String.class, data -> {
-            YamlPrimitive wrapped = new YamlPrimitive((String) data);
-            return representers.get(YamlPrimitive.class).representData(wrapped);
-        });
+        representers.put(String.class, data -> representScalar(Tag.STR, (String) data, true));
 
         classTags = new LinkedHashMap<>();
         this.settings = settings;
     }
 
+    @Override
+    public Node represent(Object data) {
+        Node node = super.represent(data);
+        // comments of the root document are kept by the element itself
+        if (settings.getDumpComments() && data instanceof YamlElement element) {
+            List<CommentLine> comments = element.getComments();
+            if (!comments.isEmpty()) node.setBlockComments(comments);
+            List<CommentLine> inlineComment = element.getInlineComment();
+            if (!inlineComment.isEmpty()) node.setInLineComments(inlineComment);
+        }
+        return node;
+    }
+
+    /**
+     * Sets the comments of a member or an item kept by its container. If the container has none,
+     * the comments kept by the element itself are used.
+     *
+     * @param blockNode node the block comments are set on
+     * @param inlineNode node the inline comment is set on
+     * @param comments block comments kept by the container
+     * @param inlineComment inline comment kept by the container
+     * @param element the member or item
+     */
+    private static void applyComments(Node blockNode, Node inlineNode, @Nullable String @Nullable [] comments,
+                                      @Nullable String inlineComment, @Nullable YamlElement element) {
+        if (comments == null && inlineComment == null) {
+            if (element == null) return;
+            List<CommentLine> ownComments = element.getComments();
+            if (!ownComments.isEmpty()) blockNode.setBlockComments(ownComments);
+            List<CommentLine> ownInlineComment = element.getInlineComment();
+            if (!ownInlineComment.isEmpty()) inlineNode.setInLineComments(ownInlineComment);
+            return;
+        }
+        if (comments != null) blockNode.setBlockComments(toBlockComments(comments));
+        if (inlineComment != null) inlineNode.setInLineComments(toInlineComments(inlineComment));
+    }
+
+    private static List<CommentLine> toBlockComments(@Nullable String[] comments) {
+        List<CommentLine> commentLines = new ArrayList<>(comments.length);
+        for (String comment : comments) {
+            if (comment == null)
+                commentLines.add(new CommentLine(Optional.empty(), Optional.empty(), "", CommentType.BLANK_LINE));
+            else
+                commentLines.add(new CommentLine(Optional.empty(), Optional.empty(), comment, CommentType.BLOCK));
+        }
+        return commentLines;
+    }
+
+    private static List<CommentLine> toInlineComments(String comment) {
+        return Collections.singletonList(new CommentLine(Optional.empty(), Optional.empty(), comment, CommentType.IN_LINE));
+    }
+
+    /**
+     * Represents a scalar, choosing its style from a single pass over the value.
+     *
+     * @param tag tag of the scalar
+     * @param value value of the scalar
+     * @param analyze whether the value may contain line breaks or non-printable characters,
+     *                which is never the case for numbers and booleans
+     * @return scalar node
+     */
+    protected Node representScalar(Tag tag, String value, boolean analyze) {
+        int flags = analyze ? analyze(value) : 0;
+        ScalarStyle style = ScalarStyle.PLAIN;
+
+        if ((flags & NON_PRINTABLE) != 0 && settings.getNonPrintableStyle() == NonPrintableStyle.BINARY) {
+            if ((flags & MALFORMED) != 0) throw new YamlEngineException("invalid string value has occurred");
+            return representScalar(
+                    Tag.BINARY,
+                    Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)),
+                    ScalarStyle.LITERAL
+            );
+        }
+
+        if (defaultScalarStyle == ScalarStyle.PLAIN && (flags & MULTILINE) != 0)
+            style = ScalarStyle.LITERAL;
+
+        return representScalar(tag, value, style);
+    }
+
+    private int analyze(String value) {
+        if (value.length() > MAX_CACHED_LENGTH) return classify(value);
+        int index = value.hashCode() & (CACHE_SIZE - 1);
+        if (value.equals(cachedValues[index])) return cachedFlags[index];
+        int flags = classify(value);
+        cachedValues[index] = value;
+        cachedFlags[index] = (byte) flags;
+        return flags;
+    }
+
+    /**
+     * Classifies the characters of the value the same way as {@link StreamReader#isPrintable(String)}
+     * and {@link #MULTILINE_PATTERN} do, in a single pass.
+     *
+     * @param value value to classify
+     * @return classification flags of the value
+     */
+    private static int classify(String value) {
+        int flags = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c <= 0x7E) continue;
+            if (c == '\n' || c == '\u0085') {
+                flags |= MULTILINE;
+            } else if (c == '\t' || c == '\r' || (c >= 0xA0 && c <= 0xD7FF) || (c >= 0xE000 && c <= 0xFFFD)) {
+                continue;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                flags |= NON_PRINTABLE | MALFORMED;
+            } else {
+                flags |= NON_PRINTABLE;
+            }
+        }
+        return flags;
+    }
+
+    // Only the entries of the collections currently being represented are kept,
+    // removing them one by one avoids clearing the whole identity map for every collection
+
     @Override
     protected Node representSequence(Tag tag, Iterable<?> sequence, FlowStyle flowStyle) {
+        Object represented = objectToRepresent;
         Node node = super.representSequence(tag, sequence, flowStyle);
-        representedObjects.clear();
+        representedObjects.remove(represented);
         return node;
     }
 
     @Override
     protected Node representMapping(Tag tag, Map<?, ?> mapping, FlowStyle flowStyle) {
+        Object represented = objectToRepresent;
         Node node = super.representMapping(tag, mapping, flowStyle);
-        representedObjects.clear();
+        representedObjects.remove(represented);
         return node;
     }
 
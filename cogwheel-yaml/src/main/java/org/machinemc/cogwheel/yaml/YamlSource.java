@@ -0,0 +1,298 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.jetbrains.annotations.Nullable;
+import org.machinemc.cogwheel.yaml.wrapper.*;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.snakeyaml.engine.v2.api.lowlevel.Compose;
+import org.snakeyaml.engine.v2.common.ScalarStyle;
+import org.snakeyaml.engine.v2.exceptions.YamlEngineException;
+import org.snakeyaml.engine.v2.nodes.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Source of a YAML document together with the positions of its scalars, used by
+ * {@link YamlConfigProperties.SaveMode#PATCH} to save a document by rewriting only its changed scalars.
+ * <p>
+ * The positions are found by composing the source once it is patched for the first time,
+ * patching then produces a new source with the positions already moved, so saving
+ * repeatedly never parses the document again.
+ */
+final class YamlSource {
+
+    private static final Set<String> RESERVED = Set.of("true", "false", "null", "yes", "no", "on", "off", "y", "n");
+
+    private final String text;
+    private final LoadSettings settings;
+    private @Nullable SourceNode root;
+    private boolean composed;
+
+    /**
+     * @param text source of the document
+     * @param settings settings to compose the document with
+     */
+    YamlSource(String text, LoadSettings settings) {
+        this.text = text;
+        this.settings = settings;
+    }
+
+    private YamlSource(String text, LoadSettings settings, SourceNode root) {
+        this.text = text;
+        this.settings = settings;
+        this.root = root;
+        this.composed = true;
+    }
+
+    String text() {
+        return text;
+    }
+
+    /**
+     * Rewrites the scalars whose values differ from the given object, everything else
+     * in the source, including formatting and comments, is kept as it is.
+     *
+     * @param yamlObject new content of the document
+     * @return the patched source, {@code null} if the structure of the document changed
+     * or the changed scalars can not be rewritten safely
+     */
+    synchronized @Nullable YamlSource patch(YamlObject yamlObject) {
+        if (!composed) {
+            root = compose(text, settings);
+            composed = true;
+        }
+        if (root == null) return null;
+        Patch patch = new Patch(text);
+        SourceNode patched = patch.apply(root, yamlObject);
+        if (patched == null) return null;
+        if (!patch.changed) return this;
+        return new YamlSource(patch.finish(), settings, patched);
+    }
+
+    private static @Nullable SourceNode compose(String text, LoadSettings settings) {
+        if (!text.isEmpty() && text.charAt(0) == '\uFEFF') return null;
+        Node node;
+        try {
+            node = new Compose(settings).composeString(text).orElse(null);
+        } catch (YamlEngineException e) {
+            return null;
+        }
+        if (!(node instanceof MappingNode)) return null;
+        // marks are code point indices, they match char indices unless there are surrogate pairs
+        Offsets offsets = text.length() != text.codePointCount(0, text.length()) ? new Offsets(text) : null;
+        return build(text, node, offsets);
+    }
+
+    private static @Nullable SourceNode build(String text, Node node, @Nullable Offsets offsets) {
+        if (node.getAnchor().isPresent()) return null; // aliases share the node, changing it would change all of them
+        return switch (node) {
+            case ScalarNode scalar -> {
+                if (scalar.getStartMark().isEmpty() || scalar.getEndMark().isEmpty()) yield null;
+                int start = scalar.getStartMark().get().getIndex();
+                int end = scalar.getEndMark().get().getIndex();
+                if (offsets != null) {
+                    start = offsets.toChar(start);
+                    end = offsets.toChar(end);
+                }
+                yield new Scalar(start, end, YamlElementConstructor.toElement(scalar), isPatchable(text, scalar, start, end));
+            }
+            case MappingNode mapping -> {
+                Map<String, SourceNode> entries = LinkedHashMap.newLinkedHashMap(mapping.getValue().size());
+                for (NodeTuple tuple : mapping.getValue()) {
+                    if (!(tuple.getKeyNode() instanceof ScalarNode key)) yield null;
+                    SourceNode value = build(text, tuple.getValueNode(), offsets);
+                    if (value == null || entries.putIfAbsent(key.getValue(), value) != null) yield null;
+                }
+                yield new Mapping(entries);
+            }
+            case SequenceNode sequence -> {
+                List<SourceNode> elements = new ArrayList<>(sequence.getValue().size());
+                for (Node element : sequence.getValue()) {
+                    SourceNode value = build(text, element, offsets);
+                    if (value == null) yield null;
+                    elements.add(value);
+                }
+                yield new Sequence(elements);
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Only single line scalars without tags can be replaced in place.
+     */
+    private static boolean isPatchable(String text, ScalarNode scalar, int start, int end) {
+        if (start == end) return scalar.getScalarStyle() == ScalarStyle.PLAIN;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') return false;
+        }
+        char first = text.charAt(start);
+        return switch (scalar.getScalarStyle()) {
+            case PLAIN -> first != '!' && first != '&' && first != '*';
+            case DOUBLE_QUOTED -> first == '"';
+            case SINGLE_QUOTED -> first == '\'';
+            default -> false;
+        };
+    }
+
+    /**
+     * @return the element written as a single line scalar
+     */
+    static String toScalar(YamlElement element) {
+        if (!(element instanceof YamlPrimitive primitive)) return "null";
+        return switch (primitive.asRawObject()) {
+            case String string -> isPlain(string) ? string : quote(string);
+            case Double d when d.isNaN() -> ".nan";
+            case Double d when d.isInfinite() -> d > 0 ? ".inf" : "-.inf";
+            case Float f when f.isNaN() -> ".nan";
+            case Float f when f.isInfinite() -> f > 0 ? ".inf" : "-.inf";
+            case BigDecimal decimal -> decimal.toString();
+            default -> primitive.getAsString();
+        };
+    }
+
+    /**
+     * Conservative check whether the string can be written as a plain scalar and still be read as the same string,
+     * in block as well as in flow context.
+     */
+    private static boolean isPlain(String string) {
+        if (string.isEmpty() || !Character.isLetter(string.charAt(0))) return false;
+        if (string.charAt(string.length() - 1) == ' ') return false;
+        char previous = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            boolean allowed = Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == '/'
+                    || (c == ' ' && previous != ' ');
+            if (!allowed) return false;
+            previous = c;
+        }
+        return !RESERVED.contains(string.toLowerCase(Locale.ROOT));
+    }
+
+    private static String quote(String string) {
+        StringBuilder builder = new StringBuilder(string.length() + 2).append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                case '\u0085', '\u2028', '\u2029', '\uFEFF' -> builder.append(String.format("\\u%04X", (int) c));
+                default -> {
+                    if (c < 0x20 || (c >= 0x7F && c <= 0x9F)) builder.append(String.format("\\x%02X", (int) c));
+                    else builder.append(c);
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Converts code point indices to char indices. The scalars are built in document order,
+     * so each conversion only walks from the previous index.
+     */
+    private static final class Offsets {
+
+        private final String text;
+        private int codePointIndex;
+        private int charIndex;
+
+        private Offsets(String text) {
+            this.text = text;
+        }
+
+        private int toChar(int codePointIndex) {
+            charIndex = text.offsetByCodePoints(charIndex, codePointIndex - this.codePointIndex);
+            this.codePointIndex = codePointIndex;
+            return charIndex;
+        }
+
+    }
+
+    private sealed interface SourceNode permits Scalar, Mapping, Sequence {
+    }
+
+    /**
+     * @param start index of the first char of the scalar
+     * @param end index after the last char of the scalar
+     * @param value value of the scalar, {@code null} if it has a custom tag
+     * @param patchable whether the scalar can be replaced
+     */
+    private record Scalar(int start, int end, @Nullable YamlElement value, boolean patchable) implements SourceNode {
+    }
+
+    private record Mapping(Map<String, SourceNode> entries) implements SourceNode {
+    }
+
+    private record Sequence(List<SourceNode> elements) implements SourceNode {
+    }
+
+    /**
+     * Walks the source in document order, copying the text between the replaced scalars.
+     */
+    private static final class Patch {
+
+        private final String source;
+        private final StringBuilder builder = new StringBuilder();
+        private int cursor;
+        private int shift;
+        private boolean changed;
+
+        private Patch(String source) {
+            this.source = source;
+        }
+
+        private @Nullable SourceNode apply(SourceNode node, YamlElement element) {
+            return switch (node) {
+                case Scalar scalar -> apply(scalar, element);
+                case Mapping mapping -> {
+                    if (!(element instanceof YamlObject yamlObject) || yamlObject.size() != mapping.entries().size()) yield null;
+                    Map<String, SourceNode> entries = LinkedHashMap.newLinkedHashMap(mapping.entries().size());
+                    for (Map.Entry<String, SourceNode> entry : mapping.entries().entrySet()) {
+                        YamlElement value = yamlObject.get(entry.getKey());
+                        SourceNode patched = value != null ? apply(entry.getValue(), value) : null;
+                        if (patched == null) yield null;
+                        entries.put(entry.getKey(), patched);
+                    }
+                    yield new Mapping(entries);
+                }
+                case Sequence sequence -> {
+                    if (!(element instanceof YamlArray yamlArray) || yamlArray.size() != sequence.elements().size()) yield null;
+                    List<SourceNode> elements = new ArrayList<>(sequence.elements().size());
+                    for (int i = 0; i < yamlArray.size(); i++) {
+                        SourceNode patched = apply(sequence.elements().get(i), yamlArray.get(i));
+                        if (patched == null) yield null;
+                        elements.add(patched);
+                    }
+                    yield new Sequence(elements);
+                }
+            };
+        }
+
+        private @Nullable SourceNode apply(Scalar scalar, YamlElement element) {
+            if (!(element instanceof YamlPrimitive || element instanceof YamlNull)) return null;
+            if (scalar.value() != null && scalar.value().equals(element)) {
+                return shift == 0 ? scalar : new Scalar(scalar.start() + shift, scalar.end() + shift, scalar.value(), scalar.patchable());
+            }
+            if (!scalar.patchable()) return null;
+            String replacement = toScalar(element);
+            // an empty value directly follows the colon of its key
+            String prefix = scalar.start() == scalar.end() ? " " : "";
+            builder.append(source, cursor, scalar.start()).append(prefix).append(replacement);
+            cursor = scalar.end();
+            changed = true;
+            int start = scalar.start() + shift + prefix.length();
+            shift += prefix.length() + replacement.length() - (scalar.end() - scalar.start());
+            return new Scalar(start, start + replacement.length(), element, true);
+        }
+
+        private String finish() {
+            return builder.append(source, cursor, source.length()).toString();
+        }
+
+    }
+
+}
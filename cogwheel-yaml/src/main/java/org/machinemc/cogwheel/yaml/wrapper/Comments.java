@@ -0,0 +1,30 @@
+package org.machinemc.cogwheel.yaml.wrapper;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Comments of a single element, only allocated for elements that have any.
+ */
+final class Comments {
+
+    @Nullable String @Nullable [] lines;
+    @Nullable String inline;
+
+    boolean isEmpty() {
+        return lines == null && inline == null;
+    }
+
+    Comments copy() {
+        Comments copy = new Comments();
+        if (lines != null) copy.lines = Arrays.copyOf(lines, lines.length);
+        copy.inline = inline; // Strings are immutable, no need to clone it
+        return copy;
+    }
+
+    static @Nullable Comments copyOf(@Nullable Comments comments) {
+        return comments != null ? comments.copy() : null;
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.machinemc.cogwheel.yaml.wrapper;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Insertion ordered map that keeps small maps as a flat key/value array
+ * and only switches to a {@link LinkedHashMap} once it grows.
+ * <p>
+ * Most YAML mappings only have a handful of entries, for which a linear scan
+ * is both faster and far smaller than a hash table.
+ *
+ * @param <V> type of the values
+ */
+final class CompactMap<V> extends AbstractMap<String, V> {
+
+    static final int MAX_FLAT_SIZE = 8;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] flat = EMPTY; // keys at even, values at odd indices
+    private int size;
+    private LinkedHashMap<String, V> map;
+    private transient Set<Map.Entry<String, V>> entrySet;
+
+    CompactMap() {
+    }
+
+    CompactMap(int expectedSize) {
+        if (expectedSize > MAX_FLAT_SIZE) map = LinkedHashMap.newLinkedHashMap(expectedSize);
+        else if (expectedSize > 0) flat = new Object[expectedSize * 2];
+    }
+
+    @Override
+    public int size() {
+        return map != null ? map.size() : size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map != null ? map.containsKey(key) : indexOf(key) != -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (map != null) return map.get(key);
+        int index = indexOf(key);
+        return index != -1 ? (V) flat[index + 1] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(String key, V value) {
+        if (map != null) return map.put(key, value);
+        int index = indexOf(key);
+        if (index != -1) {
+            V previous = (V) flat[index + 1];
+            flat[index + 1] = value;
+            return previous;
+        }
+        if (size == MAX_FLAT_SIZE) {
+            inflate();
+            return map.put(key, value);
+        }
+        if (size * 2 == flat.length)
+            flat = Arrays.copyOf(flat, Math.max(4, flat.length * 2));
+        flat[size * 2] = key;
+        flat[size * 2 + 1] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (map != null) return map.remove(key);
+        int index = indexOf(key);
+        if (index == -1) return null;
+        V previous = (V) flat[index + 1];
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        map = null;
+        flat = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public @NotNull Set<Map.Entry<String, V>> entrySet() {
+        if (entrySet != null) return entrySet;
+        return entrySet = new AbstractSet<>() {
+
+            @Override
+            public @NotNull Iterator<Map.Entry<String, V>> iterator() {
+                return map != null ? map.entrySet().iterator() : new FlatIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+
+        };
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size * 2; i += 2) {
+            if (Objects.equals(flat[i], key)) return i;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(flat, index + 2, flat, index, size * 2 - index - 2);
+        size--;
+        flat[size * 2] = null;
+        flat[size * 2 + 1] = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void inflate() {
+        LinkedHashMap<String, V> map = LinkedHashMap.newLinkedHashMap(size * 2);
+        for (int i = 0; i < size * 2; i += 2)
+            map.put((String) flat[i], (V) flat[i + 1]);
+        this.map = map;
+        flat = EMPTY;
+        size = 0;
+    }
+
+    private class FlatIterator implements Iterator<Map.Entry<String, V>> {
+
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size * 2;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<String, V> next() {
+            if (map != null) throw new ConcurrentModificationException();
+            if (!hasNext()) throw new NoSuchElementException();
+            last = next;
+            next += 2;
+            return new FlatEntry((String) flat[last], (V) flat[last + 1]);
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) throw new IllegalStateException();
+            if (map != null) throw new ConcurrentModificationException();
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+
+    }
+
+    private class FlatEntry extends AbstractMap.SimpleEntry<String, V> {
+
+        private FlatEntry(String key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+
+    }
+
+}
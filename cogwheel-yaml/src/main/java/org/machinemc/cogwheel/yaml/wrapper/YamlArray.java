@@ -1,16 +1,21 @@
 package org.machinemc.cogwheel.yaml.wrapper;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.snakeyaml.engine.v2.comments.CommentLine;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 public final class YamlArray extends YamlElement implements Iterable<YamlElement> {
 
     private final ArrayList<YamlElement> elements;
+    // comments of the items by their index, only allocated once an item has comments
+    private @Nullable ArrayList<@Nullable Comments> comments;
 
     public YamlArray() {
         elements = new ArrayList<>();
@@ -26,14 +31,71 @@ public final class YamlArray extends YamlElement implements Iterable<YamlElement
 
     @Override
     public YamlArray deepCopy() {
-        if (elements.isEmpty()) return new YamlArray();
-        YamlArray result = new YamlArray(elements.size());
+        YamlArray result = elements.isEmpty() ? new YamlArray() : new YamlArray(elements.size());
         for (YamlElement element : elements)
             result.add(element.deepCopy());
+        if (comments != null) {
+            result.comments = new ArrayList<>(comments.size());
+            for (Comments itemComments : comments)
+                result.comments.add(Comments.copyOf(itemComments));
+        }
         copyComments(result);
         return result;
     }
 
+    /**
+     * Returns the comments above the given item, blank lines are represented by nulls.
+     *
+     * @param index index of the item
+     * @return comments of the item, or null if it has none
+     */
+    public @Nullable String @Nullable [] getComments(int index) {
+        Comments itemComments = getItemComments(index, false);
+        return itemComments != null ? itemComments.lines : null;
+    }
+
+    public void setComments(int index, @Nullable String @Nullable [] comments) {
+        Comments itemComments = getItemComments(index, comments != null);
+        if (itemComments == null) return;
+        itemComments.lines = comments;
+        if (itemComments.isEmpty()) this.comments.set(index, null);
+    }
+
+    public @Nullable String getInlineComment(int index) {
+        Comments itemComments = getItemComments(index, false);
+        return itemComments != null ? itemComments.inline : null;
+    }
+
+    public void setInlineComment(int index, @Nullable String comment) {
+        Comments itemComments = getItemComments(index, comment != null);
+        if (itemComments == null) return;
+        itemComments.inline = comment;
+        if (itemComments.isEmpty()) this.comments.set(index, null);
+    }
+
+    /**
+     * @return whether any item of this array has comments
+     */
+    public boolean hasComments() {
+        if (comments == null) return false;
+        for (Comments itemComments : comments)
+            if (itemComments != null) return true;
+        return false;
+    }
+
+    private @Nullable Comments getItemComments(int index, boolean create) {
+        if (create) {
+            if (index < 0 || index >= elements.size())
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + elements.size());
+            if (comments == null) comments = new ArrayList<>(elements.size());
+            while (comments.size() <= index) comments.add(null);
+            Comments itemComments = comments.get(index);
+            if (itemComments == null) comments.set(index, itemComments = new Comments());
+            return itemComments;
+        }
+        return comments != null && index >= 0 && index < comments.size() ? comments.get(index) : null;
+    }
+
     public void add(Boolean bool) {
         elements.add(bool == null ? new YamlNull() : new YamlPrimitive(bool));
     }
@@ -60,15 +122,22 @@ public final class YamlArray extends YamlElement implements Iterable<YamlElement
     }
 
     public YamlElement set(int index, YamlElement element) {
-        return elements.set(index, element == null ? new YamlNull() : element);
+        YamlElement previous = elements.set(index, element == null ? new YamlNull() : element);
+        if (comments != null && index < comments.size()) comments.set(index, null);
+        return previous;
     }
 
     public boolean remove(YamlElement element) {
-        return elements.remove(element);
+        int index = elements.indexOf(element);
+        if (index == -1) return false;
+        remove(index);
+        return true;
     }
 
     public YamlElement remove(int index) {
-        return elements.remove(index);
+        YamlElement removed = elements.remove(index);
+        if (comments != null && index < comments.size()) comments.remove(index);
+        return removed;
     }
 
     public boolean contains(YamlElement element) {
@@ -85,7 +154,31 @@ public final class YamlArray extends YamlElement implements Iterable<YamlElement
 
     @Override
     public @NotNull Iterator<YamlElement> iterator() {
-        return elements.iterator();
+        Iterator<YamlElement> iterator = elements.iterator();
+        return new Iterator<>() {
+
+            private int index = -1;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public YamlElement next() {
+                YamlElement next = iterator.next();
+                index++;
+                return next;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                if (comments != null && index < comments.size()) comments.remove(index);
+                index--;
+            }
+
+        };
     }
 
     public YamlElement get(int i) {
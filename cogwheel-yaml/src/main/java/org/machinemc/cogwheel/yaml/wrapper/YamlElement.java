@@ -10,16 +10,13 @@ import java.util.*;
 
 public sealed abstract class YamlElement permits YamlArray, YamlNull, YamlObject, YamlPrimitive {
 
-    private @Nullable String @Nullable [] comments;
-    private @Nullable String inlineComment;
+    // comments of this element itself, only allocated once it has any
+    private @Nullable Comments ownComments;
 
     public abstract YamlElement deepCopy();
 
     protected void copyComments(YamlElement destination) {
-        if (comments != null)
-            destination.comments = Arrays.copyOf(comments, comments.length);
-        if (inlineComment != null)
-            destination.inlineComment = inlineComment; // Strings are immutable, no need to clone it
+        destination.ownComments = Comments.copyOf(ownComments);
     }
 
     public boolean isYamlArray() {
@@ -104,9 +101,15 @@ public sealed abstract class YamlElement permits YamlArray, YamlNull, YamlObject
 
     public abstract Object asRawObject();
 
+    /**
+     * Returns the comments above this element. Comments set on the containing
+     * {@link YamlObject} or {@link YamlArray} for this member or item take precedence when the element is emitted.
+     *
+     * @return comments above this element
+     */
     public List<CommentLine> getComments() {
-        if (comments == null) return Collections.emptyList();
-        return Arrays.stream(comments)
+        if (ownComments == null || ownComments.lines == null) return Collections.emptyList();
+        return Arrays.stream(ownComments.lines)
                 .map(comment -> {
                     if (comment == null)
                         return new CommentLine(Optional.empty(), Optional.empty(), "", CommentType.BLANK_LINE);
@@ -116,16 +119,18 @@ public sealed abstract class YamlElement permits YamlArray, YamlNull, YamlObject
     }
 
     public void setComments(@Nullable String @Nullable [] comments) {
-        this.comments = comments;
+        if (ownComments == null && comments != null) ownComments = new Comments();
+        if (ownComments != null) ownComments.lines = comments;
     }
 
     public List<CommentLine> getInlineComment() {
-        if (inlineComment == null) return Collections.emptyList();
-        return Collections.singletonList(new CommentLine(Optional.empty(), Optional.empty(), inlineComment, CommentType.IN_LINE));
+        if (ownComments == null || ownComments.inline == null) return Collections.emptyList();
+        return Collections.singletonList(new CommentLine(Optional.empty(), Optional.empty(), ownComments.inline, CommentType.IN_LINE));
     }
 
     public void setInlineComment(@Nullable String comment) {
-        this.inlineComment = comment;
+        if (ownComments == null && comment != null) ownComments = new Comments();
+        if (ownComments != null) ownComments.inline = comment;
     }
 
     @SuppressWarnings("unchecked")
@@ -1,30 +1,113 @@
 package org.machinemc.cogwheel.yaml.wrapper;
 
+import org.jetbrains.annotations.Nullable;
+import org.snakeyaml.engine.v2.comments.CommentLine;
+
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public non-sealed class YamlObject extends YamlElement {
 
-    private final Map<String, YamlElement> members = new LinkedHashMap<>();
+    private final Map<String, YamlElement> members;
+    private @Nullable Map<String, Comments> comments;
+    private transient @Nullable Consumer<? super YamlObject> commentResolver;
 
     public YamlObject() {
+        members = new CompactMap<>();
+    }
+
+    public YamlObject(int expectedSize) {
+        members = new CompactMap<>(expectedSize);
     }
 
     @Override
     public YamlObject deepCopy() {
-        YamlObject result = new YamlObject();
+        YamlObject result = new YamlObject(members.size());
         for (Map.Entry<String, YamlElement> entry : members.entrySet()) {
             result.add(entry.getKey(), entry.getValue().deepCopy());
         }
+        if (comments != null) {
+            result.comments = new CompactMap<>(comments.size());
+            comments.forEach((key, value) -> result.comments.put(key, value.copy()));
+        }
         copyComments(result);
+        result.commentResolver = commentResolver;
         return result;
     }
 
+    /**
+     * Returns the comments above the given member, blank lines are represented by nulls.
+     *
+     * @param property name of the member
+     * @return comments of the member, or null if it has none
+     */
+    public @Nullable String @Nullable [] getComments(String property) {
+        Comments memberComments = comments != null ? comments.get(property) : null;
+        return memberComments != null ? memberComments.lines : null;
+    }
+
+    public void setComments(String property, @Nullable String @Nullable [] comments) {
+        Comments memberComments = getOrCreateComments(property, comments != null);
+        if (memberComments == null) return;
+        memberComments.lines = comments;
+        if (memberComments.isEmpty()) this.comments.remove(property);
+    }
+
+    public @Nullable String getInlineComment(String property) {
+        Comments memberComments = comments != null ? comments.get(property) : null;
+        return memberComments != null ? memberComments.inline : null;
+    }
+
+    public void setInlineComment(String property, @Nullable String comment) {
+        Comments memberComments = getOrCreateComments(property, comment != null);
+        if (memberComments == null) return;
+        memberComments.inline = comment;
+        if (memberComments.isEmpty()) this.comments.remove(property);
+    }
+
+    /**
+     * @return whether any member of this object has comments
+     */
+    public boolean hasComments() {
+        return comments != null && !comments.isEmpty();
+    }
+
+    private @Nullable Comments getOrCreateComments(String property, boolean create) {
+        if (comments == null) {
+            if (!create) return null;
+            comments = new CompactMap<>();
+        }
+        Comments memberComments = comments.get(property);
+        if (memberComments == null && create) comments.put(property, memberComments = new Comments());
+        return memberComments;
+    }
+
+    /**
+     * Defers the comments of this object and its members until {@link #resolveComments()} is called.
+     *
+     * @param resolver resolver that applies the comments to this object, or null to discard deferred comments
+     */
+    public void deferComments(@Nullable Consumer<? super YamlObject> resolver) {
+        commentResolver = resolver;
+    }
+
+    /**
+     * Applies the comments deferred by {@link #deferComments(Consumer)}, if there are any.
+     */
+    public void resolveComments() {
+        Consumer<? super YamlObject> resolver = commentResolver;
+        if (resolver == null) return;
+        commentResolver = null;
+        resolver.accept(this);
+    }
+
     @Override
     public Map<String, Object> asRawObject() {
-        Map<String, Object> map = new LinkedHashMap<>();
+        Map<String, Object> map = LinkedHashMap.newLinkedHashMap(members.size());
         for (Map.Entry<String, YamlElement> entry : members.entrySet())
             map.put(entry.getKey(), entry.getValue().asRawObject());
         return map;
@@ -32,9 +115,11 @@ public non-sealed class YamlObject extends YamlElement {
 
     public void add(String property, YamlElement value) {
         members.put(property, value == null ? new YamlNull() : value);
+        if (comments != null) comments.remove(property);
     }
 
     public YamlElement remove(String property) {
+        if (comments != null) comments.remove(property);
         return members.remove(property);
     }
 
@@ -105,7 +190,7 @@ public non-sealed class YamlObject extends YamlElement {
     }
 
     public static YamlObject of(Map<String, ?> map) {
-        YamlObject yamlObject = new YamlObject();
+        YamlObject yamlObject = new YamlObject(map.size());
         map.forEach((key, value) -> yamlObject.add(key, YamlElement.of(value)));
         return yamlObject;
     }
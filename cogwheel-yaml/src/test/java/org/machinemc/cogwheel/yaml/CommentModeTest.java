@@ -0,0 +1,101 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentModeTest {
+
+    private static final String YAML = """
+            # port
+            port: 80 # inline
+            section:
+              # nested
+              name: x
+            list:
+            # item
+            - 1
+            """;
+
+    public static class Section implements Configuration {
+
+        private String name;
+
+    }
+
+    public static class Root implements Configuration {
+
+        private int port;
+        private Section section;
+
+    }
+
+    private static YamlConfigSerializer serializer(YamlConfigProperties.CommentMode commentMode) {
+        return YamlConfigSerializer.builder().commentMode(commentMode).build();
+    }
+
+    private static String write(YamlConfigSerializer serializer, YamlObject yamlObject) throws Exception {
+        StringWriter writer = new StringWriter();
+        serializer.write(writer, yamlObject);
+        return writer.toString();
+    }
+
+    private static void assertComments(YamlObject yamlObject) {
+        assertArrayEquals(new String[]{" port"}, yamlObject.getComments("port"));
+        assertEquals(" inline", yamlObject.getInlineComment("port"));
+        assertArrayEquals(new String[]{" nested"}, yamlObject.getAsYamlObject("section").getComments("name"));
+        assertArrayEquals(new String[]{" item"}, yamlObject.getAsYamlArray("list").getComments(0));
+    }
+
+    private static void assertSavedComments(YamlConfigSerializer serializer, YamlObject yamlObject) throws Exception {
+        YamlObject saved = serializer(YamlConfigProperties.CommentMode.EAGER).load(new StringReader(write(serializer, yamlObject)));
+        assertEquals(yamlObject, saved);
+        assertComments(saved);
+    }
+
+    @Test
+    void eagerModeAttachesCommentsOnLoad() throws Exception {
+        YamlConfigSerializer serializer = serializer(YamlConfigProperties.CommentMode.EAGER);
+        YamlObject yamlObject = serializer.load(new StringReader(YAML));
+        assertComments(yamlObject);
+        assertSavedComments(serializer, yamlObject);
+    }
+
+    @Test
+    void noneModeDropsComments() throws Exception {
+        YamlConfigSerializer serializer = serializer(YamlConfigProperties.CommentMode.NONE);
+        YamlObject yamlObject = serializer.load(new StringReader(YAML));
+        assertFalse(yamlObject.hasComments());
+        assertFalse(yamlObject.getAsYamlObject("section").hasComments());
+        assertEquals("port: 80\nsection:\n  name: x\nlist:\n- 1\n", write(serializer, yamlObject));
+        Root root = serializer.load(new StringReader(YAML), Root.class);
+        assertEquals(80, root.port);
+        assertEquals("x", root.section.name);
+    }
+
+    @Test
+    void lazyModeRecoversCommentsOnSave() throws Exception {
+        YamlConfigSerializer serializer = serializer(YamlConfigProperties.CommentMode.LAZY);
+        YamlObject yamlObject = serializer.load(new StringReader(YAML));
+        assertFalse(yamlObject.hasComments());
+        assertSavedComments(serializer, yamlObject);
+        assertComments(yamlObject);
+    }
+
+    @Test
+    void lazyModeKeepsCommentsSetBeforeResolving() {
+        YamlConfigSerializer serializer = serializer(YamlConfigProperties.CommentMode.LAZY);
+        YamlObject yamlObject = serializer.load(new StringReader(YAML));
+        yamlObject.setComments("port", new String[]{" changed"});
+        yamlObject.resolveComments();
+        assertArrayEquals(new String[]{" changed"}, yamlObject.getComments("port"));
+        assertNull(yamlObject.getInlineComment("port"));
+        assertArrayEquals(new String[]{" nested"}, yamlObject.getAsYamlObject("section").getComments("name"));
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactNumberTest {
+
+    public static class Numbers implements Configuration {
+
+        private double nan = Double.NaN;
+        private double infinity = Double.POSITIVE_INFINITY;
+        private float negativeInfinity = Float.NEGATIVE_INFINITY;
+        private BigInteger big = BigInteger.TWO.pow(80);
+
+    }
+
+    private final YamlConfigSerializer serializer = YamlConfigSerializer.newDefault();
+
+    @TempDir
+    private Path directory;
+
+    private Number number(String yaml) throws Exception {
+        YamlObject yamlObject = serializer.read(new StringReader("value: " + yaml));
+        return yamlObject.get("value").getAsNumber();
+    }
+
+    @Test
+    void integersUseTheNarrowestType() throws Exception {
+        assertEquals(Integer.valueOf(42), number("42"));
+        assertEquals(Long.valueOf(1L << 40), number(String.valueOf(1L << 40)));
+        assertEquals(BigInteger.TWO.pow(70), number(BigInteger.TWO.pow(70).toString()));
+    }
+
+    @Test
+    void decimalsAreDoublesOnlyIfExact() throws Exception {
+        assertEquals(Double.valueOf(0.5), number("0.5"));
+        assertEquals(new BigDecimal("0.12345678901234567890"), number("0.12345678901234567890"));
+        assertEquals(new BigDecimal("1e-400"), number("1e-400"));
+    }
+
+    @Test
+    void nonFiniteDecimalsAreParsed() throws Exception {
+        assertEquals(Double.POSITIVE_INFINITY, number(".inf"));
+        assertEquals(Double.NEGATIVE_INFINITY, number("-.inf"));
+        assertEquals(Double.NaN, number(".nan"));
+    }
+
+    @Test
+    void nonFiniteValuesRoundTrip() {
+        Path file = directory.resolve("numbers.yml");
+        serializer.save(file, new Numbers());
+        Numbers loaded = serializer.load(file, Numbers.class);
+        assertTrue(Double.isNaN(loaded.nan));
+        assertEquals(Double.POSITIVE_INFINITY, loaded.infinity);
+        assertEquals(Float.NEGATIVE_INFINITY, loaded.negativeInfinity);
+        assertEquals(BigInteger.TWO.pow(80), loaded.big);
+    }
+
+}
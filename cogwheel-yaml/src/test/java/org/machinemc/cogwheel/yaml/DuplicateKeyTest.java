@@ -0,0 +1,55 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+import org.snakeyaml.engine.v2.exceptions.DuplicateKeyException;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DuplicateKeyTest {
+
+    private static final YamlConfigSerializer ALLOWING = YamlConfigSerializer.builder()
+            .loadSettings(settings -> settings.setAllowDuplicateKeys(true))
+            .build();
+
+    private static String mapping(int size, String duplicate) {
+        return IntStream.range(0, size).mapToObj(i -> "k" + i + ": " + i + "\n").collect(Collectors.joining())
+                + duplicate + ": last\n";
+    }
+
+    @Test
+    void lastDuplicateWins() {
+        for (int size : new int[]{2, 20}) {
+            YamlObject yamlObject = ALLOWING.load(new StringReader(mapping(size, "k1")));
+            assertEquals(size, yamlObject.size());
+            assertEquals("last", yamlObject.get("k1").getAsString());
+            List<String> keys = IntStream.range(0, size).filter(i -> i != 1).mapToObj(i -> "k" + i).collect(Collectors.toList());
+            keys.add("k1");
+            assertEquals(keys, List.copyOf(yamlObject.keySet()));
+        }
+    }
+
+    @Test
+    void quotedAndPlainKeysAreTheSameString() {
+        YamlObject yamlObject = ALLOWING.load(new StringReader("key: 1\n'key': 2\n\"key\": 3\n"));
+        assertEquals(1, yamlObject.size());
+        assertEquals(3, yamlObject.get("key").getAsInt());
+    }
+
+    @Test
+    void duplicatesAreRejectedUnlessAllowed() {
+        YamlConfigSerializer serializer = YamlConfigSerializer.newDefault();
+        for (String yaml : new String[]{mapping(2, "k0"), mapping(20, "k19"), "1: a\n1: b\n"}) {
+            Throwable thrown = assertThrows(RuntimeException.class, () -> serializer.load(new StringReader(yaml)));
+            while (!(thrown instanceof DuplicateKeyException) && thrown.getCause() != null) thrown = thrown.getCause();
+            assertInstanceOf(DuplicateKeyException.class, thrown);
+        }
+        assertEquals(20, serializer.load(new StringReader(mapping(19, "k19"))).size());
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.config.KeyProjection;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+
+import java.io.StringReader;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyProjectionTest {
+
+    public static class Port implements Configuration {
+
+        private int port;
+
+    }
+
+    public static class PortOnly implements Configuration {
+
+        private Port server = new Port();
+
+    }
+
+    private final YamlConfigSerializer serializer = YamlConfigSerializer.newDefault();
+
+    @Test
+    void skippedSubtreesAreNotConstructed() {
+        String yaml = "name:\n  a: 1\n  a: 2\nserver:\n  host: h\n  port: 1\n";
+        assertThrows(RuntimeException.class, () -> serializer.load(new StringReader(yaml)));
+        YamlObject projected = serializer.load(new StringReader(yaml), KeyProjection.of("server.port"));
+        assertEquals(Set.of("server"), projected.keySet());
+        assertEquals(Set.of("port"), projected.getAsYamlObject("server").keySet());
+    }
+
+    @Test
+    void anchoredNodesAreKeptWhole() {
+        String yaml = "defaults: &defaults\n  host: h\n  port: 1\nserver: *defaults\n";
+        YamlObject projected = serializer.load(new StringReader(yaml), KeyProjection.of("server.port"));
+        assertEquals(Set.of("server"), projected.keySet());
+        assertEquals(1, projected.getAsYamlObject("server").get("port").getAsInt());
+    }
+
+    @Test
+    void projectionClassIgnoresValuesItDoesNotDeclare() {
+        String yaml = "server:\n  port: 8080\n  host: {unexpected: section}\nname: [1, 2]\n";
+        assertEquals(8080, serializer.loadProjection(new StringReader(yaml), PortOnly.class).server.port);
+    }
+
+}
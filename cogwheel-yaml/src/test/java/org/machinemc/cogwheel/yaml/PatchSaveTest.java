@@ -0,0 +1,162 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.machinemc.cogwheel.config.Configuration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatchSaveTest {
+
+    public static class Root implements Configuration {
+
+        private int port = 80;
+        private String name = "server";
+        private String motd;
+        private List<Integer> ids = new ArrayList<>(List.of(1, 2));
+
+    }
+
+    private final YamlConfigSerializer serializer = YamlConfigSerializer.builder()
+            .saveMode(YamlConfigProperties.SaveMode.PATCH)
+            .build();
+
+    @TempDir
+    private Path directory;
+
+    private Path write(String yaml) throws Exception {
+        Path file = directory.resolve("config.yml");
+        Files.writeString(file, yaml);
+        return file;
+    }
+
+    private String patch(String yaml, Consumer<Root> change) throws Exception {
+        Path file = write(yaml);
+        Root root = serializer.load(file, Root.class);
+        change.accept(root);
+        serializer.save(file, root);
+        String saved = Files.readString(file);
+        Root reloaded = YamlConfigSerializer.newDefault().load(file, Root.class);
+        assertEquals(root.port, reloaded.port);
+        assertEquals(root.name, reloaded.name);
+        assertEquals(root.motd, reloaded.motd);
+        assertEquals(root.ids, reloaded.ids);
+        return saved;
+    }
+
+    @Test
+    void blockScalarsArePatchedInPlace() throws Exception {
+        String yaml = """
+                # hand written
+                port:   80    # the port
+                name: server
+                motd: hello
+                ids:
+                  - 1
+                  - 2
+                """;
+        assertEquals(yaml.replace("80 ", "8080 ").replace("- 2", "- 3"), patch(yaml, root -> {
+            root.port = 8080;
+            root.ids.set(1, 3);
+        }));
+    }
+
+    @Test
+    void flowCollectionsArePatchedInPlace() throws Exception {
+        String yaml = "{port: 80, name: server, motd: hi, ids: [1, 2]} # flow\n";
+        assertEquals("{port: 80, name: \"a, b\", motd: hi, ids: [1, 20]} # flow\n", patch(yaml, root -> {
+            root.name = "a, b";
+            root.ids.set(1, 20);
+        }));
+    }
+
+    @Test
+    void quotedScalarsAreReplaced() throws Exception {
+        String yaml = "port: 80\nname: 'single # quoted'\nmotd: \"double\"\nids: []\n";
+        assertEquals("port: 80\nname: other\nmotd: \"it's \\\"new\\\"\"\nids: []\n", patch(yaml, root -> {
+            root.name = "other";
+            root.motd = "it's \"new\"";
+            root.ids = new ArrayList<>();
+        }));
+    }
+
+    @Test
+    void emptyValuesAreFilled() throws Exception {
+        String yaml = "port: 80\nname: server\nmotd:\nids: [1, 2]\n";
+        assertEquals("port: 80\nname: server\nmotd: welcome\nids: [1, 2]\n", patch(yaml, root -> root.motd = "welcome"));
+        assertEquals("port: 80\nname: server\nmotd: null\nids: [1, 2]\n",
+                patch("port: 80\nname: server\nmotd: x\nids: [1, 2]\n", root -> root.motd = null));
+    }
+
+    @Test
+    void surrogatePairsKeepPositions() throws Exception {
+        String yaml = "name: \"😀 emoji 😀\" # 😀\nport: 80 # after\nmotd: 😀\nids: [1, 2]\n";
+        assertEquals("name: \"😀 emoji 😀\" # 😀\nport: 81 # after\nmotd: 😀\nids: [1, 3]\n", patch(yaml, root -> {
+            root.port = 81;
+            root.ids.set(1, 3);
+        }));
+    }
+
+    @Test
+    void anchorsAreEmittedWhole() throws Exception {
+        String yaml = "# hand\nport: &p 80\nname: server\nmotd: *p\nids: [1, 2]\n";
+        String saved = patch(yaml, root -> root.port = 81);
+        assertFalse(saved.contains("# hand"), saved);
+    }
+
+    @Test
+    void byteOrderMarksAreEmittedWhole() throws Exception {
+        String yaml = "\uFEFF# hand\nport: 80\nname: server\nmotd: hi\nids: [1, 2]\n";
+        String saved = patch(yaml, root -> root.port = 81);
+        assertFalse(saved.contains("# hand"), saved);
+    }
+
+    @Test
+    void structureChangesAreEmittedWhole() throws Exception {
+        String yaml = "# hand\nport: 80\nname: server\nmotd: hi\nids: [1, 2]\n";
+        String saved = patch(yaml, root -> root.ids.add(3));
+        assertFalse(saved.contains("# hand"), saved);
+        saved = patch("# hand\nport: 80\nname: server\nids: [1, 2]\n", root -> root.port = 81);
+        assertFalse(saved.contains("# hand"), saved);
+    }
+
+    @Test
+    void multilineScalarsAreEmittedWhole() throws Exception {
+        String yaml = "# hand\nport: 80\nname: server\nmotd: |\n  line\nids: [1, 2]\n";
+        String saved = patch(yaml, root -> root.motd = "other");
+        assertFalse(saved.contains("# hand"), saved);
+    }
+
+    @Test
+    void filesModifiedSinceLoadAreEmittedWhole() throws Exception {
+        Path file = write("# hand\nport: 80\nname: server\nmotd: hi\nids: [1, 2]\n");
+        Root root = serializer.load(file, Root.class);
+        Files.writeString(file, "# edited\nport: 80\nname: server\nmotd: hi\nids: [1, 2]\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+        root.port = 81;
+        serializer.save(file, root);
+        String saved = Files.readString(file);
+        assertFalse(saved.contains("# edited"), saved);
+        assertTrue(saved.contains("port: 81"), saved);
+    }
+
+    @Test
+    void repeatedSavesPatchTheLastWrittenSource() throws Exception {
+        Path file = write("port: 80 # port\nname: server\nmotd: hi\nids: [1, 2]\n");
+        Root root = serializer.load(file, Root.class);
+        for (int port = 1; port <= 3; port++) {
+            root.port = port * 1000;
+            root.name = "server" + port;
+            serializer.save(file, root);
+        }
+        assertEquals("port: 3000 # port\nname: server3\nmotd: hi\nids: [1, 2]\n", Files.readString(file));
+    }
+
+}
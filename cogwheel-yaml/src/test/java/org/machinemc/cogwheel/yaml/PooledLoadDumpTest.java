@@ -0,0 +1,66 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.config.Configuration;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+import org.snakeyaml.engine.v2.api.Dump;
+import org.snakeyaml.engine.v2.api.Load;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledLoadDumpTest {
+
+    public static class Root implements Configuration {
+
+        private int id;
+        private List<String> values = List.of();
+
+    }
+
+    private final YamlConfigSerializer serializer = YamlConfigSerializer.newDefault();
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void deprecatedAccessorsDoNotLendPooledInstances() {
+        YamlConfigProperties properties = serializer.getProperties(YamlConfigProperties.class);
+        Dump pooledDump = properties.dumps().borrow();
+        Load pooledLoad = properties.loads().borrow();
+        properties.dumps().release(pooledDump);
+        properties.loads().release(pooledLoad);
+        assertNotSame(pooledDump, properties.dump());
+        assertNotSame(pooledLoad, properties.load());
+        assertNotSame(properties.dump(), properties.dump());
+        YamlObject yamlObject = new YamlObject();
+        yamlObject.addProperty("value", 1);
+        assertEquals("value: 1\n", properties.dump().dumpToString(yamlObject));
+        assertEquals(yamlObject, properties.load().loadFromString("value: 1"));
+    }
+
+    @Test
+    void concurrentRoundTripsKeepTheirOwnContent() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<Root>> futures = IntStream.range(0, 200).mapToObj(i -> executor.submit(() -> {
+                Root root = new Root();
+                root.id = i;
+                root.values = List.of("v" + i, "w" + i);
+                StringWriter writer = new StringWriter();
+                serializer.save(writer, root);
+                return serializer.load(new StringReader(writer.toString()), Root.class);
+            })).toList();
+            for (int i = 0; i < futures.size(); i++) {
+                Root loaded = futures.get(i).get();
+                assertEquals(i, loaded.id);
+                assertEquals(List.of("v" + i, "w" + i), loaded.values);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.yaml.wrapper.YamlArray;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+import org.snakeyaml.engine.v2.api.Dump;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.common.NonPrintableStyle;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalarStyleTest {
+
+    private static final String[] STRINGS = {
+            "", "plain", " leading", "trailing ", "a\nb", "a\u0085b", "line\u2028separator", "tab\there",
+            "emoji 😀", "bell \u0007", "true", "1.0", "null", "- dash", "key: value", "#hash", "'quote'"
+    };
+
+    private final YamlConfigSerializer serializer = YamlConfigSerializer.newDefault();
+
+    private static String write(YamlConfigSerializer serializer, YamlObject yamlObject) throws Exception {
+        StringWriter writer = new StringWriter();
+        serializer.write(writer, yamlObject);
+        return writer.toString();
+    }
+
+    private static YamlObject strings() {
+        YamlObject yamlObject = new YamlObject();
+        YamlArray array = new YamlArray();
+        for (String string : STRINGS) array.add(string);
+        // repeated values go through the style cache
+        for (String string : STRINGS) array.add(string);
+        yamlObject.add("strings", array);
+        return yamlObject;
+    }
+
+    @Test
+    void stringsRoundTrip() throws Exception {
+        YamlObject yamlObject = strings();
+        assertEquals(yamlObject, serializer.load(new StringReader(write(serializer, yamlObject))));
+    }
+
+    @Test
+    void multilineStringsAreLiteral() throws Exception {
+        YamlObject yamlObject = new YamlObject();
+        yamlObject.addProperty("text", "first\nsecond");
+        yamlObject.addProperty("single", "first second");
+        assertEquals("text: |-\n  first\n  second\nsingle: first second\n", write(serializer, yamlObject));
+    }
+
+    @Test
+    void nonPrintableStringsAreBinaryIfConfigured() throws Exception {
+        DumpSettings settings = DumpSettings.builder().setNonPrintableStyle(NonPrintableStyle.BINARY).build();
+        YamlConfigSerializer binary = YamlConfigSerializer.builder()
+                .dump(() -> new Dump(settings, new YamlElementRepresenter(settings)))
+                .build();
+        YamlObject yamlObject = new YamlObject();
+        yamlObject.addProperty("bell", "bell \u0007");
+        yamlObject.addProperty("emoji", "emoji 😀");
+        String yaml = write(binary, yamlObject);
+        assertTrue(yaml.contains("bell: !!binary"), yaml);
+        assertFalse(yaml.contains("emoji: !!binary"), yaml);
+    }
+
+    @Test
+    void malformedStringsAreRejectedAsBinary() {
+        DumpSettings settings = DumpSettings.builder().setNonPrintableStyle(NonPrintableStyle.BINARY).build();
+        YamlConfigSerializer binary = YamlConfigSerializer.builder()
+                .dump(() -> new Dump(settings, new YamlElementRepresenter(settings)))
+                .build();
+        YamlObject yamlObject = new YamlObject();
+        yamlObject.addProperty("lone", "\uD83D");
+        assertThrows(RuntimeException.class, () -> write(binary, yamlObject));
+    }
+
+}
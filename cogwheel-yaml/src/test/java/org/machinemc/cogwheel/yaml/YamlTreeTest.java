@@ -0,0 +1,79 @@
+package org.machinemc.cogwheel.yaml;
+
+import org.junit.jupiter.api.Test;
+import org.machinemc.cogwheel.yaml.wrapper.YamlArray;
+import org.machinemc.cogwheel.yaml.wrapper.YamlElement;
+import org.machinemc.cogwheel.yaml.wrapper.YamlObject;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlTreeTest {
+
+    private final YamlConfigSerializer serializer = YamlConfigSerializer.newDefault();
+
+    private YamlObject load(String yaml) {
+        return serializer.load(new StringReader(yaml));
+    }
+
+    private String save(YamlObject yamlObject) throws Exception {
+        StringWriter writer = new StringWriter();
+        serializer.write(writer, yamlObject);
+        return writer.toString();
+    }
+
+    @Test
+    void commentsOfLoadedBooleansAndNullsStayOnTheirElement() throws Exception {
+        YamlObject yamlObject = load("a: true\nb: true\nc: null\nd: null\n");
+        YamlElement a = yamlObject.get("a");
+        YamlElement c = yamlObject.get("c");
+        a.setComments(new String[]{" first"});
+        a.setInlineComment(" flag");
+        c.setComments(new String[]{" empty"});
+        assertEquals(" first", a.getComments().getFirst().getValue());
+        assertTrue(yamlObject.get("b").getComments().isEmpty());
+        assertTrue(yamlObject.get("d").getComments().isEmpty());
+        assertEquals("# first\na: true # flag\nb: true\n# empty\nc: null\nd: null\n", save(yamlObject));
+    }
+
+    @Test
+    void containerCommentsTakePrecedence() throws Exception {
+        YamlObject yamlObject = load("a: 1\n");
+        yamlObject.get("a").setComments(new String[]{" element"});
+        yamlObject.setComments("a", new String[]{" member"});
+        assertEquals("# member\na: 1\n", save(yamlObject));
+    }
+
+    @Test
+    void deepCopiesDoNotShareComments() {
+        YamlObject original = load("flag: false\nlist: [1, null]\n");
+        YamlObject copy = original.deepCopy();
+        copy.get("flag").setComments(new String[]{" copy"});
+        copy.getAsYamlArray("list").get(1).setInlineComment(" copy");
+        assertTrue(original.get("flag").getComments().isEmpty());
+        assertTrue(original.getAsYamlArray("list").get(1).getInlineComment().isEmpty());
+        assertEquals(original, copy);
+    }
+
+    @Test
+    void rootAndItemCommentsRoundTrip() throws Exception {
+        String yaml = """
+                # root
+                list:
+                # first
+                - 1
+                - 2 # second
+                """;
+        YamlObject yamlObject = load(yaml);
+        YamlArray list = yamlObject.getAsYamlArray("list");
+        assertArrayEquals(new String[]{" first"}, list.getComments(0));
+        assertEquals(" second", list.getInlineComment(1));
+        list.remove(0);
+        assertNull(list.getComments(0));
+        assertEquals(" second", list.getInlineComment(0));
+        assertEquals("# root\nlist:\n- 2 # second\n", save(yamlObject));
+    }
+
+}
@@ -0,0 +1,44 @@
+package org.machinemc.cogwheel.yaml.wrapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactMapTest {
+
+    @Test
+    void behavesLikeLinkedHashMapAcrossInflation() {
+        CompactMap<Integer> compact = new CompactMap<>();
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < CompactMap.MAX_FLAT_SIZE * 2; i++) {
+            assertEquals(expected.put("k" + i, i), compact.put("k" + i, i));
+            assertEquals(expected.put("k0", -i), compact.put("k0", -i));
+            if (i % 3 == 0) assertEquals(expected.remove("k" + (i / 2)), compact.remove("k" + (i / 2)));
+            assertEquals(expected, compact);
+            assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(compact.keySet()));
+        }
+    }
+
+    @Test
+    void flatEntriesWriteThrough() {
+        CompactMap<Integer> compact = new CompactMap<>(2);
+        compact.put("a", 1);
+        compact.put("b", 2);
+        compact.put("c", 3);
+        Iterator<Map.Entry<String, Integer>> iterator = compact.entrySet().iterator();
+        iterator.next().setValue(10);
+        iterator.next();
+        iterator.remove();
+        assertEquals(List.of("a", "c"), new ArrayList<>(compact.keySet()));
+        assertEquals(Integer.valueOf(10), compact.get("a"));
+        assertEquals(Integer.valueOf(3), iterator.next().getValue());
+        assertFalse(iterator.hasNext());
+    }
+
+}